@@ -2,13 +2,14 @@ plugins {
 	java
 	id("org.springframework.boot") version "3.4.1"
 	id("io.spring.dependency-management") version "1.1.7"
+	id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.pubfinder"
 version = "0.0.1-SNAPSHOT"
 
 java {
-	sourceCompatibility = JavaVersion.VERSION_17
+	sourceCompatibility = JavaVersion.VERSION_21
 }
 
 configurations {
@@ -22,24 +23,44 @@ repositories {
 }
 
 dependencies {
+	implementation("org.springframework.boot:spring-boot-starter-actuator")
+	implementation("org.springframework.boot:spring-boot-starter-aop")
 	implementation("org.springframework.boot:spring-boot-starter-cache")
 	implementation("org.springframework.boot:spring-boot-starter-data-jpa")
 	implementation("org.springframework.boot:spring-boot-starter-security")
 	implementation("org.springframework.boot:spring-boot-starter-validation")
 	implementation("org.springframework.boot:spring-boot-starter-web")
 	implementation("org.mapstruct:mapstruct:1.6.3")
-	implementation("com.github.ben-manes.caffeine:jcache:3.1.8")
-	// implementation("org.postgresql:postgresql:42.7.3")
+	implementation("com.github.ben-manes.caffeine:caffeine")
+	implementation("org.hibernate.orm:hibernate-micrometer")
+	runtimeOnly("io.micrometer:micrometer-registry-prometheus")
 	compileOnly("org.projectlombok:lombok")
 	developmentOnly("org.springframework.boot:spring-boot-devtools")
-	runtimeOnly("org.postgresql:postgresql")
+	implementation("org.postgresql:postgresql")
 	annotationProcessor("org.projectlombok:lombok")
 	testImplementation("org.springframework.security:spring-security-test")
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testImplementation("com.h2database:h2:2.2.224")
 	testImplementation("org.testcontainers:postgresql:1.19.7")
+	testImplementation("net.ttddyy:datasource-proxy:1.10")
 }
 
 tasks.withType<Test> {
 	useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// ./gradlew jmh [-Pjmh.includes=MapperBenchmark]. Results are written as JSON named after the
+// commit, so runs from different commits can be kept side by side and compared.
+val jmhCommit = providers.exec {
+	commandLine("git", "rev-parse", "--short", "HEAD")
+	isIgnoreExitValue = true
+}.standardOutput.asText.map { it.trim().ifEmpty { "local" } }
+
+jmh {
+	fork.set(1)
+	warmupIterations.set(2)
+	iterations.set(5)
+	resultFormat.set("JSON")
+	resultsFile.set(layout.buildDirectory.file(jmhCommit.map { "results/jmh/$it.json" }))
+	findProperty("jmh.includes")?.let { includes.set(listOf(it.toString())) }
+}
@@ -0,0 +1,47 @@
+#!/usr/bin/env bash
+# Runs the same k6 profile against the service in platform-thread mode and in virtual-thread
+# mode and keeps both summaries side by side.
+#
+# Requirements: a Java 21+ runtime (virtual threads), k6, and the database from
+# docker-compose.yml. The database is recreated before each run, so both runs start empty and
+# are seeded identically by the k6 setup. Usage: loadtest/compare.sh [rate] [duration]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RATE="${1:-500}"
+DURATION="${2:-2m}"
+OUT="build/loadtest/$(date +%Y%m%d-%H%M%S)"
+mkdir -p "$OUT"
+
+JAVA_VERSION="$(java -XshowSettings:properties -version 2>&1 | sed -n 's/ *java.specification.version = //p')"
+if [ "${JAVA_VERSION%%.*}" -lt 21 ]; then
+  echo "Virtual threads need a Java 21+ runtime" >&2
+  exit 1
+fi
+
+./gradlew -q bootJar
+JAR="$(ls build/libs/*.jar | grep -v plain | head -n 1)"
+
+reset_database() {
+  docker compose rm -sfv database > /dev/null
+  docker compose up -d database
+  until docker compose exec -T database pg_isready -U admin -d userservicedb > /dev/null; do sleep 1; done
+}
+
+run() {
+  local mode="$1"; shift
+  reset_database
+  java "$@" -jar "$JAR" > "$OUT/$mode.log" 2>&1 &
+  local pid=$!
+  until curl -sf http://localhost:8084/actuator/health > /dev/null; do sleep 1; done
+  k6 run --quiet -e RATE="$RATE" -e DURATION="$DURATION" -e RUN_ID="$mode-$(date +%s)" \
+    --summary-export "$OUT/$mode.json" loadtest/user-service.js
+  curl -sf http://localhost:8084/actuator/metrics/jvm.threads.virtual.pinned > "$OUT/$mode-pinned.json" || true
+  kill "$pid"
+  wait "$pid" || true
+}
+
+run platform
+run virtual -Dspring.profiles.active=virtual-threads
+
+echo "Summaries written to $OUT (platform.json, virtual.json)"
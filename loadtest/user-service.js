@@ -0,0 +1,67 @@
+// k6 load profile for comparing the platform-thread and virtual-thread execution modes.
+// Run through compare.sh so both modes start from an empty database and see the same seed data,
+// duration and arrival rate.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8084';
+const USERS = parseInt(__ENV.SEED_USERS || '200');
+const RATE = parseInt(__ENV.RATE || '500');
+const DURATION = __ENV.DURATION || '2m';
+const RUN_ID = __ENV.RUN_ID || `${Date.now()}`;
+
+export const options = {
+  scenarios: {
+    // Constant arrival rate: if the service slows down, k6 adds VUs instead of backing off,
+    // so latency and error rate show where one replica saturates.
+    mixed: {
+      executor: 'constant-arrival-rate',
+      rate: RATE,
+      timeUnit: '1s',
+      duration: DURATION,
+      preAllocatedVUs: 200,
+      maxVUs: 5000,
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+const json = { headers: { 'Content-Type': 'application/json' } };
+
+export function setup() {
+  const ids = [];
+  for (let i = 0; i < USERS; i++) {
+    const res = http.post(`${BASE_URL}/user/register`, JSON.stringify({
+      username: `load-${RUN_ID}-${i}`,
+      email: `load-${RUN_ID}-${i}@example.com`,
+      firstname: 'Load',
+      lastname: `User ${i}`,
+      password: 'correct horse battery staple',
+    }), json);
+    ids.push(res.headers['X-User-Id']);
+  }
+  for (let i = 1; i < ids.length; i++) {
+    http.post(`${BASE_URL}/user/follow`, JSON.stringify({ userId: ids[i], followId: ids[0] }), json);
+  }
+  return { ids };
+}
+
+export default function (data) {
+  const ids = data.ids;
+  const id = ids[Math.floor(Math.random() * ids.length)];
+  const roll = Math.random();
+  let res;
+  if (roll < 0.6) {
+    res = http.get(`${BASE_URL}/user/${id}`, { tags: { endpoint: 'getUser' } });
+  } else if (roll < 0.8) {
+    res = http.get(`${BASE_URL}/user/${ids[0]}/followers?limit=50`, { tags: { endpoint: 'followers' } });
+  } else if (roll < 0.95) {
+    const other = ids[Math.floor(Math.random() * ids.length)];
+    const path = Math.random() < 0.5 ? 'follow' : 'unfollow';
+    res = http.post(`${BASE_URL}/user/${path}`, JSON.stringify({ userId: id, followId: other }),
+      Object.assign({ tags: { endpoint: path } }, json));
+  } else {
+    res = http.get(`${BASE_URL}/user/available?username=free-${Math.random()}`, { tags: { endpoint: 'available' } });
+  }
+  check(res, { 'not 5xx': (r) => r.status < 500 });
+}
@@ -0,0 +1,177 @@
+package com.pubfinder.pubfinder.benchmark;
+
+import com.pubfinder.pubfinder.cache.CachedUser;
+import com.pubfinder.pubfinder.db.UserProfileView;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.dto.UserSummaryDto;
+import com.pubfinder.pubfinder.mapper.Mapper;
+import com.pubfinder.pubfinder.models.User;
+import com.pubfinder.pubfinder.models.enums.Role;
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Fixtures shared by the benchmarks: users with a given number of followers and an in-memory
+ * stand-in for {@link UserRepository}, so nothing measured here waits on a database.
+ */
+final class BenchmarkUsers {
+
+  private BenchmarkUsers() {
+  }
+
+  static User user(int i) {
+    return User.builder()
+        .id(new UUID(0L, i + 1L))
+        .username("username" + i)
+        .firstname("firstname")
+        .lastname("lastname")
+        .email("user" + i + "@example.com")
+        .password("$2a$10$abcdefghijklmnopqrstuuJ0F1wQq5J5n1rO7L0X7w3H8eQ9V2Z6e")
+        .role(Role.USER)
+        .build();
+  }
+
+  /**
+   * A user followed by {@code followers} users and following a tenth as many.
+   */
+  static User userWithFollowers(int followers) {
+    User user = user(0);
+    for (int i = 1; i <= followers; i++) {
+      User follower = user(i);
+      follower.addFollowing(user);
+      if (i % 10 == 0) {
+        user.addFollowing(follower);
+      }
+    }
+    user.setFollowerCount(user.getFollowers().size());
+    user.setFollowingCount(user.getFollowing().size());
+    return user;
+  }
+
+  /**
+   * The cache entry of a user with both neighbour id lists, as an expanded getUser stores it.
+   */
+  static CachedUser expandedCachedUser(User user) {
+    return Mapper.INSTANCE.viewToCachedUser(profile(user))
+        .withFollowing(user.getFollowing().stream().map(User::getId).sorted().toList())
+        .withFollowers(user.getFollowers().stream().map(User::getId).sorted().toList());
+  }
+
+  /**
+   * The cache entries of the user's neighbours, keyed by id.
+   */
+  static Map<UUID, CachedUser> cachedNeighbours(User user) {
+    Map<UUID, CachedUser> neighbours = new HashMap<>();
+    user.getFollowers().forEach(neighbour -> neighbours.put(neighbour.getId(),
+        Mapper.INSTANCE.viewToCachedUser(profile(neighbour))));
+    user.getFollowing().forEach(neighbour -> neighbours.put(neighbour.getId(),
+        Mapper.INSTANCE.viewToCachedUser(profile(neighbour))));
+    return neighbours;
+  }
+
+  /**
+   * Maps a cached user and its neighbours to the expanded profile, the way getUser does once
+   * every entry has been read from the cache.
+   */
+  static UserProfileDto expandedProfile(CachedUser user, Map<UUID, CachedUser> neighbours) {
+    UserProfileDto profile = Mapper.INSTANCE.cachedUserToProfileDto(user);
+    profile.setFollowing(summaries(user.following(), neighbours));
+    profile.setFollowers(summaries(user.followers(), neighbours));
+    return profile;
+  }
+
+  private static List<UserSummaryDto> summaries(List<UUID> ids, Map<UUID, CachedUser> neighbours) {
+    return ids.stream().map(neighbours::get).map(Mapper.INSTANCE::cachedUserToSummaryDto).toList();
+  }
+
+  /**
+   * A {@link UserRepository} that answers the read queries of {@code getUser} from the given user
+   * and its neighbours, and rejects everything else.
+   */
+  static UserRepository repository(User root) {
+    Map<UUID, User> users = new HashMap<>();
+    users.put(root.getId(), root);
+    root.getFollowers().forEach(user -> users.put(user.getId(), user));
+    root.getFollowing().forEach(user -> users.put(user.getId(), user));
+    return (UserRepository) Proxy.newProxyInstance(
+        UserRepository.class.getClassLoader(),
+        new Class<?>[]{UserRepository.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("findById")) {
+            return Optional.ofNullable(users.get((UUID) args[0]));
+          }
+          if (method.getName().equals("findProfileById")) {
+            return Optional.ofNullable(users.get((UUID) args[0])).map(BenchmarkUsers::profile);
+          }
+          if (method.getName().equals("findProfilesByIdIn")) {
+            return ((Collection<?>) args[0]).stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(BenchmarkUsers::profile)
+                .toList();
+          }
+          if (method.getName().equals("findFollowingIds")) {
+            return users.get((UUID) args[0]).getFollowing().stream().map(User::getId).sorted().toList();
+          }
+          if (method.getName().equals("findFollowerIds")) {
+            return users.get((UUID) args[0]).getFollowers().stream().map(User::getId).sorted().toList();
+          }
+          if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(users, args);
+          }
+          throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  private static UserProfileView profile(User user) {
+    return new UserProfileView() {
+      @Override
+      public UUID getId() {
+        return user.getId();
+      }
+
+      @Override
+      public String getUsername() {
+        return user.getUsername();
+      }
+
+      @Override
+      public String getFirstname() {
+        return user.getFirstname();
+      }
+
+      @Override
+      public String getLastname() {
+        return user.getLastname();
+      }
+
+      @Override
+      public long getFollowerCount() {
+        return user.getFollowerCount();
+      }
+
+      @Override
+      public long getFollowingCount() {
+        return user.getFollowingCount();
+      }
+
+      @Override
+      public long getVersion() {
+        return user.getVersion();
+      }
+
+      @Override
+      public Instant getUpdatedAt() {
+        return user.getUpdatedAt();
+      }
+    };
+  }
+}
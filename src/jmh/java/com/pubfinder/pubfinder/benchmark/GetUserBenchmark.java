@@ -0,0 +1,101 @@
+package com.pubfinder.pubfinder.benchmark;
+
+import com.pubfinder.pubfinder.cache.UserCacheInvalidator;
+import com.pubfinder.pubfinder.config.UserCacheConfig;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.exception.ResourceNotFoundException;
+import com.pubfinder.pubfinder.models.User;
+import com.pubfinder.pubfinder.models.enums.UserExpansion;
+import com.pubfinder.pubfinder.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * {@link UserService#getUser} with and without the {@code getUser} cache, against an in-memory
+ * repository. The cached variants use the weighted cache built by {@link UserCacheConfig}, so the
+ * difference is what a cache hit saves; the expanded ones also resolve every neighbour.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GetUserBenchmark {
+
+  private static final Set<UserExpansion> ALL = EnumSet.allOf(UserExpansion.class);
+
+  @Param({"0", "100", "10000"})
+  public int followers;
+
+  private UUID id;
+  private UserService service;
+  private UserService cachedService;
+
+  @Setup
+  public void setup() throws ResourceNotFoundException {
+    User user = BenchmarkUsers.userWithFollowers(followers);
+    id = user.getId();
+    UserRepository repository = BenchmarkUsers.repository(user);
+
+    service = userService(repository, new NoOpCacheManager());
+
+    CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    new UserCacheConfig()
+        .userCacheCustomizer(new SimpleMeterRegistry(), DataSize.ofMegabytes(256), Duration.ofDays(1))
+        .customize(cacheManager);
+    cachedService = userService(repository, cacheManager);
+    cachedService.getUser(id, ALL);
+  }
+
+  @Benchmark
+  public UserProfileDto uncached() throws ResourceNotFoundException {
+    return service.getUser(id);
+  }
+
+  @Benchmark
+  public UserProfileDto cached() throws ResourceNotFoundException {
+    return cachedService.getUser(id);
+  }
+
+  @Benchmark
+  public UserProfileDto uncachedExpanded() throws ResourceNotFoundException {
+    return service.getUser(id, ALL);
+  }
+
+  @Benchmark
+  public UserProfileDto cachedExpanded() throws ResourceNotFoundException {
+    return cachedService.getUser(id, ALL);
+  }
+
+  private static UserService userService(UserRepository repository, CacheManager cacheManager) {
+    UserCacheInvalidator userCacheInvalidator = new UserCacheInvalidator();
+    setField(userCacheInvalidator, "cacheManager", cacheManager);
+    UserService userService = new UserService();
+    setField(userService, "userRepository", repository);
+    setField(userService, "cacheManager", cacheManager);
+    setField(userService, "userCacheInvalidator", userCacheInvalidator);
+    return userService;
+  }
+
+  private static void setField(Object target, String name, Object value) {
+    var field = ReflectionUtils.findField(target.getClass(), name);
+    ReflectionUtils.makeAccessible(field);
+    ReflectionUtils.setField(field, target, value);
+  }
+}
@@ -0,0 +1,50 @@
+package com.pubfinder.pubfinder.benchmark;
+
+import com.pubfinder.pubfinder.cache.CachedUser;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.mapper.Mapper;
+import com.pubfinder.pubfinder.models.User;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of mapping a cached user to its profile, alone and with every neighbour resolved to a
+ * summary, as the follower set grows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+
+  @Param({"0", "100", "10000"})
+  public int followers;
+
+  private CachedUser user;
+  private Map<UUID, CachedUser> neighbours;
+
+  @Setup
+  public void setup() {
+    User root = BenchmarkUsers.userWithFollowers(followers);
+    user = BenchmarkUsers.expandedCachedUser(root);
+    neighbours = BenchmarkUsers.cachedNeighbours(root);
+  }
+
+  @Benchmark
+  public UserProfileDto cachedUserToProfileDto() {
+    return Mapper.INSTANCE.cachedUserToProfileDto(user);
+  }
+
+  @Benchmark
+  public UserProfileDto expandedProfile() {
+    return BenchmarkUsers.expandedProfile(user, neighbours);
+  }
+}
@@ -0,0 +1,38 @@
+package com.pubfinder.pubfinder.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Cost of one BCrypt hash per work factor. Pick {@code user.password-hashing.strength} so that
+ * a hash stays well below the registration latency budget on the production hardware, and size
+ * {@code user.password-hashing.queue-capacity} from the resulting hashes per second per core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PasswordEncoderBenchmark {
+
+  @Param({"8", "10", "11", "12", "13"})
+  public int strength;
+
+  private BCryptPasswordEncoder encoder;
+
+  @Setup
+  public void setup() {
+    encoder = new BCryptPasswordEncoder(strength);
+  }
+
+  @Benchmark
+  public String encode() {
+    return encoder.encode("correct horse battery staple");
+  }
+}
@@ -0,0 +1,45 @@
+package com.pubfinder.pubfinder.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.models.User;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Cost of writing an expanded {@link UserProfileDto} response body, with the same object mapper
+ * defaults Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserProfileDtoSerializationBenchmark {
+
+  @Param({"0", "100", "10000"})
+  public int followers;
+
+  private ObjectMapper objectMapper;
+  private UserProfileDto dto;
+
+  @Setup
+  public void setup() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    User root = BenchmarkUsers.userWithFollowers(followers);
+    dto = BenchmarkUsers.expandedProfile(BenchmarkUsers.expandedCachedUser(root),
+        BenchmarkUsers.cachedNeighbours(root));
+  }
+
+  @Benchmark
+  public byte[] writeValueAsBytes() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(dto);
+  }
+}
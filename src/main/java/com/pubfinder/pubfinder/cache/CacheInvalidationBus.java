@@ -0,0 +1,27 @@
+package com.pubfinder.pubfinder.cache;
+
+import java.util.Collection;
+
+/**
+ * Broadcasts evicted cache keys to the other instances of this service so their local caches
+ * do not keep serving stale entries.
+ */
+public interface CacheInvalidationBus {
+
+  /**
+   * Queue keys for broadcast. Keys are coalesced and sent asynchronously; the local cache is not
+   * touched.
+   *
+   * @param cacheName the cache
+   * @param keys      the keys, in their string form
+   */
+  void publish(String cacheName, Collection<String> keys);
+
+  /**
+   * Register the local handler of invalidations for a cache.
+   *
+   * @param cacheName the cache
+   * @param listener  the handler
+   */
+  void subscribe(String cacheName, CacheInvalidationListener listener);
+}
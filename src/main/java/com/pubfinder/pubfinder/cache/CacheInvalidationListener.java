@@ -0,0 +1,22 @@
+package com.pubfinder.pubfinder.cache;
+
+import java.util.Set;
+
+/**
+ * Receives invalidations that peer instances published for one cache.
+ */
+public interface CacheInvalidationListener {
+
+  /**
+   * Evict the given keys from the local cache.
+   *
+   * @param keys the keys, in their string form
+   */
+  void evict(Set<String> keys);
+
+  /**
+   * Clear the local cache. Sent when invalidations may have been lost, e.g. after the bus
+   * reconnected.
+   */
+  void clear();
+}
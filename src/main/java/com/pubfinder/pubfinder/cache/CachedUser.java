@@ -0,0 +1,156 @@
+package com.pubfinder.pubfinder.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable {@code getUser} cache entry: the profile scalars, the version of the representation
+ * and, once they have been asked for, the neighbour ids packed two longs per id. Neighbours are
+ * resolved to summaries on read, so one heavily followed user costs 16 bytes per follower instead
+ * of a DTO graph.
+ */
+public final class CachedUser {
+
+  private static final int OBJECT_OVERHEAD = 80;
+  private static final int STRING_OVERHEAD = 40;
+  private static final int ARRAY_OVERHEAD = 16;
+
+  private final long idMostSigBits;
+  private final long idLeastSigBits;
+  private final String username;
+  private final String firstname;
+  private final String lastname;
+  private final long followerCount;
+  private final long followingCount;
+  private final long version;
+  private final long updatedAtMillis;
+  private final long[] following;
+  private final long[] followers;
+
+  public CachedUser(UUID id, String username, String firstname, String lastname,
+      long followerCount, long followingCount, long version, long updatedAtMillis) {
+    this(id.getMostSignificantBits(), id.getLeastSignificantBits(), username, firstname, lastname,
+        followerCount, followingCount, version, updatedAtMillis, null, null);
+  }
+
+  private CachedUser(long idMostSigBits, long idLeastSigBits, String username, String firstname,
+      String lastname, long followerCount, long followingCount, long version, long updatedAtMillis,
+      long[] following, long[] followers) {
+    this.idMostSigBits = idMostSigBits;
+    this.idLeastSigBits = idLeastSigBits;
+    this.username = username;
+    this.firstname = firstname;
+    this.lastname = lastname;
+    this.followerCount = followerCount;
+    this.followingCount = followingCount;
+    this.version = version;
+    this.updatedAtMillis = updatedAtMillis;
+    this.following = following;
+    this.followers = followers;
+  }
+
+  public UUID id() {
+    return new UUID(idMostSigBits, idLeastSigBits);
+  }
+
+  public String username() {
+    return username;
+  }
+
+  public String firstname() {
+    return firstname;
+  }
+
+  public String lastname() {
+    return lastname;
+  }
+
+  public long followerCount() {
+    return followerCount;
+  }
+
+  public long followingCount() {
+    return followingCount;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  public long updatedAtMillis() {
+    return updatedAtMillis;
+  }
+
+  public boolean hasFollowing() {
+    return following != null;
+  }
+
+  public boolean hasFollowers() {
+    return followers != null;
+  }
+
+  /**
+   * The ids this user follows, or {@code null} if they have not been loaded.
+   */
+  public List<UUID> following() {
+    return unpack(following);
+  }
+
+  /**
+   * The ids following this user, or {@code null} if they have not been loaded.
+   */
+  public List<UUID> followers() {
+    return unpack(followers);
+  }
+
+  public CachedUser withFollowing(Collection<UUID> ids) {
+    return new CachedUser(idMostSigBits, idLeastSigBits, username, firstname, lastname,
+        followerCount, followingCount, version, updatedAtMillis, pack(ids), followers);
+  }
+
+  public CachedUser withFollowers(Collection<UUID> ids) {
+    return new CachedUser(idMostSigBits, idLeastSigBits, username, firstname, lastname,
+        followerCount, followingCount, version, updatedAtMillis, following, pack(ids));
+  }
+
+  /**
+   * Estimated retained size of this entry in bytes, assuming compact (Latin-1) strings.
+   */
+  public int weight() {
+    long bytes = OBJECT_OVERHEAD
+        + sizeOf(username) + sizeOf(firstname) + sizeOf(lastname)
+        + sizeOf(following) + sizeOf(followers);
+    return (int) Math.min(Integer.MAX_VALUE, bytes);
+  }
+
+  private static long sizeOf(String value) {
+    return value == null ? 0 : STRING_OVERHEAD + value.length();
+  }
+
+  private static long sizeOf(long[] ids) {
+    return ids == null ? 0 : ARRAY_OVERHEAD + 8L * ids.length;
+  }
+
+  private static long[] pack(Collection<UUID> ids) {
+    long[] packed = new long[ids.size() * 2];
+    int i = 0;
+    for (UUID id : ids) {
+      packed[i++] = id.getMostSignificantBits();
+      packed[i++] = id.getLeastSignificantBits();
+    }
+    return packed;
+  }
+
+  private static List<UUID> unpack(long[] packed) {
+    if (packed == null) {
+      return null;
+    }
+    List<UUID> ids = new ArrayList<>(packed.length / 2);
+    for (int i = 0; i < packed.length; i += 2) {
+      ids.add(new UUID(packed[i], packed[i + 1]));
+    }
+    return ids;
+  }
+}
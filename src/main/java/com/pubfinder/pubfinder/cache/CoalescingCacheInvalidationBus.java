@@ -0,0 +1,102 @@
+package com.pubfinder.pubfinder.cache;
+
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Base bus that buffers published keys per cache and flushes them in one message per cache and
+ * interval, so a burst of evictions of the same key costs a single broadcast.
+ */
+@Slf4j
+public abstract class CoalescingCacheInvalidationBus implements CacheInvalidationBus {
+
+  /** Identifies this instance so it can ignore its own broadcasts. */
+  protected final String instanceId = UUID.randomUUID().toString();
+
+  private final Map<String, Set<String>> pending = new ConcurrentHashMap<>();
+  private final Map<String, CopyOnWriteArrayList<CacheInvalidationListener>> listeners =
+      new ConcurrentHashMap<>();
+  private final ScheduledExecutorService flusher;
+
+  protected CoalescingCacheInvalidationBus(Duration flushInterval) {
+    this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "cache-invalidation-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long millis = Math.max(1, flushInterval.toMillis());
+    flusher.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Keys are added inside {@code compute}, which excludes the {@code remove} of a concurrent
+   * {@link #flush}: a publish lands either in the set being flushed or in a fresh one, never in a
+   * set that has already been taken.
+   */
+  @Override
+  public void publish(String cacheName, Collection<String> keys) {
+    if (!keys.isEmpty()) {
+      pending.compute(cacheName, (name, current) -> {
+        Set<String> next = current == null ? new HashSet<>() : current;
+        next.addAll(keys);
+        return next;
+      });
+    }
+  }
+
+  @Override
+  public void subscribe(String cacheName, CacheInvalidationListener listener) {
+    listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+  }
+
+  /**
+   * Send everything published since the last flush.
+   */
+  public void flush() {
+    for (String cacheName : pending.keySet()) {
+      Set<String> keys = pending.remove(cacheName);
+      if (keys == null || keys.isEmpty()) {
+        continue;
+      }
+      try {
+        send(cacheName, Set.copyOf(keys));
+      } catch (RuntimeException e) {
+        log.warn("Failed to broadcast {} invalidations for cache {}", keys.size(), cacheName, e);
+      }
+    }
+  }
+
+  /**
+   * Deliver invalidations received from a peer to the local listeners.
+   */
+  protected void deliver(String cacheName, Set<String> keys) {
+    listeners.getOrDefault(cacheName, new CopyOnWriteArrayList<>())
+        .forEach(listener -> listener.evict(keys));
+  }
+
+  /**
+   * Clear every subscribed cache, used when invalidations may have been missed.
+   */
+  protected void deliverClearAll() {
+    listeners.values().forEach(list -> list.forEach(CacheInvalidationListener::clear));
+  }
+
+  protected abstract void send(String cacheName, Set<String> keys);
+
+  @PreDestroy
+  public void shutdown() {
+    flush();
+    flusher.shutdownNow();
+  }
+}
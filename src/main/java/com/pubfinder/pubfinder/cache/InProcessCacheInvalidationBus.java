@@ -0,0 +1,40 @@
+package com.pubfinder.pubfinder.cache;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bus connecting the instances that live in the same JVM. With a single instance it is a no-op;
+ * tests create several instances to stand in for replicas.
+ */
+@Component
+@ConditionalOnProperty(name = "user.cache.invalidation.bus", havingValue = "in-process", matchIfMissing = true)
+public class InProcessCacheInvalidationBus extends CoalescingCacheInvalidationBus {
+
+  private static final Set<InProcessCacheInvalidationBus> PEERS = new CopyOnWriteArraySet<>();
+
+  public InProcessCacheInvalidationBus(
+      @Value("${user.cache.invalidation.flush-interval:50ms}") Duration flushInterval) {
+    super(flushInterval);
+    PEERS.add(this);
+  }
+
+  @Override
+  protected void send(String cacheName, Set<String> keys) {
+    for (InProcessCacheInvalidationBus peer : PEERS) {
+      if (peer != this) {
+        peer.deliver(cacheName, keys);
+      }
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    super.shutdown();
+    PEERS.remove(this);
+  }
+}
@@ -0,0 +1,165 @@
+package com.pubfinder.pubfinder.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bus over Postgres LISTEN/NOTIFY. Notifications are sent through the regular pool; listening
+ * uses one dedicated connection outside the pool so it never competes with request traffic.
+ *
+ * <p>Payload format: {@code <instance id>|<cache name>|<key>,<key>,...}, split across several
+ * notifications to stay below the Postgres payload limit.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "user.cache.invalidation.bus", havingValue = "postgres")
+public class PostgresCacheInvalidationBus extends CoalescingCacheInvalidationBus {
+
+  /** Postgres rejects payloads of 8000 bytes or more. */
+  static final int MAX_PAYLOAD_BYTES = 7900;
+  private static final int POLL_TIMEOUT_MILLIS = 500;
+  private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+  /**
+   * A parsed notification.
+   */
+  record Notification(String instanceId, String cacheName, Set<String> keys) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataSourceProperties dataSourceProperties;
+  private final String channel;
+  private final Thread listenerThread;
+  private volatile boolean running = true;
+
+  public PostgresCacheInvalidationBus(
+      JdbcTemplate jdbcTemplate,
+      DataSourceProperties dataSourceProperties,
+      @Value("${user.cache.invalidation.flush-interval:50ms}") Duration flushInterval,
+      @Value("${user.cache.invalidation.channel:user_cache_invalidation}") String channel) {
+    super(flushInterval);
+    this.jdbcTemplate = jdbcTemplate;
+    this.dataSourceProperties = dataSourceProperties;
+    this.channel = channel;
+    this.listenerThread = new Thread(this::listen, "cache-invalidation-listener");
+    this.listenerThread.setDaemon(true);
+    this.listenerThread.start();
+  }
+
+  @Override
+  protected void send(String cacheName, Set<String> keys) {
+    String header = instanceId + "|" + cacheName + "|";
+    for (String payload : chunk(header, keys)) {
+      jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, payload);
+    }
+  }
+
+  /**
+   * Split keys into payloads of at most {@link #MAX_PAYLOAD_BYTES}, each starting with the header.
+   */
+  static List<String> chunk(String header, Set<String> keys) {
+    List<String> payloads = new ArrayList<>();
+    StringBuilder current = new StringBuilder(header);
+    int bytes = header.getBytes(StandardCharsets.UTF_8).length;
+    int headerBytes = bytes;
+    for (String key : keys) {
+      int keyBytes = key.getBytes(StandardCharsets.UTF_8).length + 1;
+      if (bytes + keyBytes > MAX_PAYLOAD_BYTES && bytes > headerBytes) {
+        payloads.add(current.toString());
+        current = new StringBuilder(header);
+        bytes = headerBytes;
+      }
+      if (bytes > headerBytes) {
+        current.append(',');
+      }
+      current.append(key);
+      bytes += keyBytes;
+    }
+    if (bytes > headerBytes) {
+      payloads.add(current.toString());
+    }
+    return payloads;
+  }
+
+  private void listen() {
+    long backoff = 500;
+    boolean connectedBefore = false;
+    while (running) {
+      try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+          dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+        }
+        if (connectedBefore) {
+          // Anything broadcast while we were disconnected is lost
+          deliverClearAll();
+        }
+        connectedBefore = true;
+        backoff = 500;
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              receive(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException e) {
+        if (!running) {
+          return;
+        }
+        log.warn("Cache invalidation listener lost its connection, retrying in {} ms", backoff, e);
+        try {
+          Thread.sleep(backoff);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+      }
+    }
+  }
+
+  private void receive(String payload) {
+    Notification notification = parse(payload);
+    if (notification != null && !notification.instanceId().equals(instanceId)) {
+      deliver(notification.cacheName(), notification.keys());
+    }
+  }
+
+  /**
+   * @return the notification, or {@code null} if the payload is malformed or carries no keys
+   */
+  static Notification parse(String payload) {
+    String[] parts = payload.split("\\|", 3);
+    if (parts.length != 3 || parts[2].isEmpty()) {
+      return null;
+    }
+    return new Notification(parts[0], parts[1], new HashSet<>(Arrays.asList(parts[2].split(","))));
+  }
+
+  @Override
+  public void shutdown() {
+    running = false;
+    super.shutdown();
+    listenerThread.interrupt();
+  }
+}
@@ -0,0 +1,114 @@
+package com.pubfinder.pubfinder.cache;
+
+import com.pubfinder.pubfinder.event.UsersChangedEvent;
+import jakarta.annotation.PostConstruct;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts changed users from the user caches once the change is committed, so a concurrent read
+ * can never repopulate the cache from uncommitted state. Evictions are also broadcast to the
+ * other instances through the {@link CacheInvalidationBus}.
+ *
+ * <p>A read that loaded a user before a change committed must not cache it after the change's
+ * eviction. Every eviction records a sequence number for its id, and reads take one before they
+ * query; {@link #put} drops a user evicted since. The numbers are kept per stripe of ids rather
+ * than per id, so memory stays bounded and a collision only costs a skipped put.
+ */
+@Component
+public class UserCacheInvalidator {
+
+  public static final String GET_USER = "getUser";
+
+  private static final int STRIPES = 4096;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Autowired
+  private CacheInvalidationBus invalidationBus;
+
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicLongArray evictedAt = new AtomicLongArray(STRIPES);
+  private volatile long clearedAt;
+
+  @PostConstruct
+  void subscribe() {
+    invalidationBus.subscribe(GET_USER, new CacheInvalidationListener() {
+      @Override
+      public void evict(Set<String> keys) {
+        Cache cache = cacheManager.getCache(GET_USER);
+        if (cache != null) {
+          keys.forEach(key -> evict(cache, UUID.fromString(key)));
+        }
+      }
+
+      @Override
+      public void clear() {
+        Cache cache = cacheManager.getCache(GET_USER);
+        if (cache != null) {
+          clearedAt = sequence.incrementAndGet();
+          cache.clear();
+        }
+      }
+    });
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUsersChanged(UsersChangedEvent event) {
+    Cache cache = cacheManager.getCache(GET_USER);
+    if (cache != null) {
+      event.userIds().forEach(id -> evict(cache, id));
+    }
+    invalidationBus.publish(GET_USER, event.userIds().stream().map(UUID::toString).toList());
+  }
+
+  /**
+   * Start loading users from the database.
+   *
+   * @return the sequence number to pass to {@link #put}
+   */
+  public long loadStarted() {
+    return sequence.incrementAndGet();
+  }
+
+  /**
+   * Cache a user loaded from the database, unless it was evicted after the load started.
+   *
+   * @param id       the users id
+   * @param user     the loaded user
+   * @param loadedAt the number {@link #loadStarted} returned before the load
+   */
+  public void put(UUID id, CachedUser user, long loadedAt) {
+    Cache cache = cacheManager.getCache(GET_USER);
+    if (cache == null || evictedSince(id, loadedAt)) {
+      return;
+    }
+    cache.put(id, user);
+    // An eviction that ran between the check and the put has recorded itself by now
+    if (evictedSince(id, loadedAt)) {
+      cache.evict(id);
+    }
+  }
+
+  private void evict(Cache cache, UUID id) {
+    evictedAt.accumulateAndGet(stripe(id), sequence.incrementAndGet(), Math::max);
+    cache.evict(id);
+  }
+
+  private boolean evictedSince(UUID id, long loadedAt) {
+    return clearedAt > loadedAt || evictedAt.get(stripe(id)) > loadedAt;
+  }
+
+  private static int stripe(UUID id) {
+    return id.hashCode() & (STRIPES - 1);
+  }
+}
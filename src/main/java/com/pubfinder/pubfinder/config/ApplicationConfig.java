@@ -2,6 +2,7 @@ package com.pubfinder.pubfinder.config;
 
 import com.pubfinder.pubfinder.db.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,9 +18,13 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @RequiredArgsConstructor
 public class ApplicationConfig {
 
+  /**
+   * Password encoder. The work factor is configurable so it can be chosen from the results of
+   * the PasswordEncoderBenchmark on the production hardware.
+   */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(@Value("${user.password-hashing.strength:10}") int strength) {
+    return new BCryptPasswordEncoder(strength);
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.pubfinder.pubfinder.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Caps the number of requests in flight relative to the connection pool. With virtual threads
+ * Tomcat no longer bounds concurrency, and without this every excess request would park in
+ * Hikari's queue until its connection timeout. Here they wait a short, bounded time for a permit
+ * and then fail fast with a 503.
+ */
+@Component
+@ConditionalOnProperty(name = "user.concurrency.limit.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private final Semaphore permits;
+  private final Duration acquireTimeout;
+  private final Counter rejected;
+
+  public ConcurrencyLimitFilter(
+      DataSource dataSource,
+      MeterRegistry meterRegistry,
+      @Value("${user.concurrency.limit.requests-per-connection:4}") int requestsPerConnection,
+      @Value("${user.concurrency.limit.acquire-timeout:PT0.5S}") Duration acquireTimeout) throws SQLException {
+    int poolSize = dataSource.isWrapperFor(HikariDataSource.class)
+        ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+        : 10;
+    int maxInFlight = Math.max(1, poolSize * requestsPerConnection);
+    this.permits = new Semaphore(maxInFlight, true);
+    this.acquireTimeout = acquireTimeout;
+    this.rejected = Counter.builder("http.server.requests.rejected")
+        .description("Requests rejected by the concurrency limiter")
+        .register(meterRegistry);
+    Gauge.builder("http.server.requests.in.flight", permits, p -> maxInFlight - p.availablePermits())
+        .description("Requests holding a concurrency permit")
+        .register(meterRegistry);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    boolean acquired;
+    try {
+      acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    if (!acquired) {
+      rejected.increment();
+      response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+      response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "The service is busy, please try again.");
+      return;
+    }
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      permits.release();
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return request.getRequestURI().startsWith("/actuator");
+  }
+}
@@ -0,0 +1,20 @@
+package com.pubfinder.pubfinder.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Application metrics on top of what Actuator binds by itself (caches, Hikari, Hibernate, HTTP
+ * server requests): {@code @Timed} support for the service layer. SQL statement counts per
+ * endpoint are registered by {@link QueryCountWebConfig}.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+    return new TimedAspect(meterRegistry);
+  }
+}
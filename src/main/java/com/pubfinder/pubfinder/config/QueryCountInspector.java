@@ -0,0 +1,28 @@
+package com.pubfinder.pubfinder.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so
+ * {@link QueryCountInterceptor} can attribute them to the endpoint that caused them. Registered
+ * through {@code hibernate.session_factory.statement_inspector}; statements sent through
+ * {@code JdbcTemplate} are not seen here.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+  private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+  @Override
+  public String inspect(String sql) {
+    COUNT.get()[0]++;
+    return sql;
+  }
+
+  static void reset() {
+    COUNT.get()[0] = 0;
+  }
+
+  static int count() {
+    return COUNT.get()[0];
+  }
+}
@@ -0,0 +1,40 @@
+package com.pubfinder.pubfinder.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements each request issued as {@code http.server.requests.queries},
+ * tagged like {@code http.server.requests} so the two can be read side by side.
+ */
+public class QueryCountInterceptor implements HandlerInterceptor {
+
+  private final MeterRegistry meterRegistry;
+
+  public QueryCountInterceptor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    QueryCountInspector.reset();
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+      Exception ex) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    DistributionSummary.builder("http.server.requests.queries")
+        .description("SQL statements issued per request")
+        .tag("method", request.getMethod())
+        .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+        .publishPercentileHistogram()
+        .register(meterRegistry)
+        .record(QueryCountInspector.count());
+  }
+}
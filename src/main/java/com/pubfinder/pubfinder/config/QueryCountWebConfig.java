@@ -0,0 +1,26 @@
+package com.pubfinder.pubfinder.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registers {@link QueryCountInterceptor} when a meter registry is available, which it is not in
+ * web slice tests.
+ */
+@Configuration
+public class QueryCountWebConfig implements WebMvcConfigurer {
+
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+
+  public QueryCountWebConfig(ObjectProvider<MeterRegistry> meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    meterRegistry.ifAvailable(r -> registry.addInterceptor(new QueryCountInterceptor(r)));
+  }
+}
@@ -0,0 +1,46 @@
+package com.pubfinder.pubfinder.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pubfinder.pubfinder.cache.CachedUser;
+import com.pubfinder.pubfinder.cache.UserCacheInvalidator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Bounds the {@code getUser} cache by the estimated bytes of its {@link CachedUser} entries
+ * instead of by entry count, so a few heavily followed users cannot blow up the heap. The
+ * weighted size is published as {@code cache.weighted.size} next to Caffeine's own statistics.
+ */
+@Configuration
+public class UserCacheConfig {
+
+  @Bean
+  public CacheManagerCustomizer<CaffeineCacheManager> userCacheCustomizer(
+      MeterRegistry meterRegistry,
+      @Value("${user.user-cache.maximum-weight:256MB}") DataSize maximumWeight,
+      @Value("${user.user-cache.expire-after-write:P1D}") Duration expireAfterWrite) {
+    return cacheManager -> {
+      Cache<Object, Object> cache = Caffeine.newBuilder()
+          .maximumWeight(maximumWeight.toBytes())
+          .weigher((Object key, Object value) -> value instanceof CachedUser user ? user.weight() : 64)
+          .expireAfterWrite(expireAfterWrite)
+          .recordStats()
+          .build();
+      cacheManager.registerCustomCache(UserCacheInvalidator.GET_USER, cache);
+      Gauge.builder("cache.weighted.size", cache,
+              c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+          .tag("cache", UserCacheInvalidator.GET_USER)
+          .baseUnit("bytes")
+          .description("Estimated bytes retained by the cache entries")
+          .register(meterRegistry);
+    };
+  }
+}
@@ -0,0 +1,72 @@
+package com.pubfinder.pubfinder.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier (blocking inside synchronized or
+ * native frames) for longer than the threshold. Every event increments
+ * {@code jvm.threads.virtual.pinned}, tagged with whether our own code was on the stack, and
+ * events from our code are logged with the offending frames so the UserService paths can be
+ * fixed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final String APPLICATION_PACKAGE = "com.pubfinder";
+
+  private final MeterRegistry meterRegistry;
+  private final Duration threshold;
+  private RecordingStream stream;
+
+  public VirtualThreadPinningMonitor(
+      MeterRegistry meterRegistry,
+      @Value("${user.virtual-threads.pinning-threshold:PT0.02S}") Duration threshold) {
+    this.meterRegistry = meterRegistry;
+    this.threshold = threshold;
+  }
+
+  @PostConstruct
+  void start() {
+    stream = new RecordingStream();
+    stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+    stream.onEvent(PINNED_EVENT, this::onPinned);
+    stream.startAsync();
+  }
+
+  private void onPinned(RecordedEvent event) {
+    String frames = event.getStackTrace() == null ? "" : event.getStackTrace().getFrames().stream()
+        .map(RecordedFrame::getMethod)
+        .map(method -> method.getType().getName() + "." + method.getName())
+        .collect(Collectors.joining(" <- "));
+    boolean ours = frames.contains(APPLICATION_PACKAGE);
+    Counter.builder("jvm.threads.virtual.pinned")
+        .tag("application", String.valueOf(ours))
+        .register(meterRegistry)
+        .increment();
+    if (ours) {
+      log.warn("Virtual thread pinned for {} ms: {}", event.getDuration().toMillis(), frames);
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    if (stream != null) {
+      stream.close();
+    }
+  }
+}
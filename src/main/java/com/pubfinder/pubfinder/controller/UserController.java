@@ -1,18 +1,34 @@
 package com.pubfinder.pubfinder.controller;
 
 
+import com.pubfinder.pubfinder.dto.AvailabilityDto;
+import com.pubfinder.pubfinder.dto.FollowCountsDto;
 import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.dto.FollowResultDto;
+import com.pubfinder.pubfinder.dto.RelationshipDto;
+import com.pubfinder.pubfinder.dto.RelationshipsDto;
+import com.pubfinder.pubfinder.dto.SuggestionDto;
 import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.UserLookupDto;
+import com.pubfinder.pubfinder.dto.UserPageDto;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.dto.UserSummaryDto;
+import com.pubfinder.pubfinder.dto.UserVersionDto;
 import com.pubfinder.pubfinder.exception.ResourceNotFoundException;
 import com.pubfinder.pubfinder.mapper.Mapper;
+import com.pubfinder.pubfinder.models.enums.UserExpansion;
 import com.pubfinder.pubfinder.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -22,9 +38,27 @@ import java.util.UUID;
 @RequestMapping(value = "/user")
 public class UserController {
 
+    private static final String BEARER_PREFIX = "Bearer ";
+
     @Autowired
     private UserService userService;
 
+    @GetMapping
+    public ResponseEntity<List<UserLookupDto>> getUsers(@RequestParam List<UUID> ids) {
+        return ResponseEntity.ok(userService.getUsers(ids));
+    }
+
+    @PostMapping("/lookup")
+    public ResponseEntity<List<UserLookupDto>> lookupUsers(@RequestBody List<UUID> ids) {
+        return ResponseEntity.ok(userService.getUsers(ids));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<UserSummaryDto>> search(@RequestParam String prefix,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userService.searchUsers(prefix, limit));
+    }
+
     @PostMapping("/register")
     public ResponseEntity<Void> registerUser(@RequestBody UserDto registerRequest)
             throws HttpClientErrorException.BadRequest {
@@ -34,6 +68,12 @@ public class UserController {
                 .build();
     }
 
+    @GetMapping("/available")
+    public ResponseEntity<AvailabilityDto> available(@RequestParam(required = false) String username,
+                                                     @RequestParam(required = false) String email) {
+        return ResponseEntity.ok(userService.checkAvailability(username, email));
+    }
+
     @DeleteMapping("/delete")
     public ResponseEntity<String> delete(@RequestBody UserDto user)
             throws ResourceNotFoundException {
@@ -50,28 +90,121 @@ public class UserController {
 
     @DeleteMapping("/revokeUserAccess/{id}")
     public ResponseEntity<Void> revokeUserAccess(@PathVariable UUID id) throws ResourceNotFoundException {
-        userService.revokeUserAccess(id);
-        return ResponseEntity.noContent().build();
+        int revoked = userService.revokeUserAccess(id);
+        return ResponseEntity.noContent()
+                .header("X-Revoked-Tokens", String.valueOf(revoked))
+                .build();
     }
 
+    @GetMapping("/token/validate")
+    public ResponseEntity<Void> validateToken(@RequestHeader(HttpHeaders.AUTHORIZATION) String authorization) {
+        String token = authorization.startsWith(BEARER_PREFIX)
+                ? authorization.substring(BEARER_PREFIX.length())
+                : authorization;
+        UUID userId = userService.validateToken(token);
+        return ResponseEntity.ok()
+                .header("X-User-Id", userId.toString())
+                .build();
+    }
+
+    /**
+     * Gets the profile of a user. Relationships are only included when asked for with
+     * {@code expand=following,followers}; {@code fields} is accepted as an alias.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getUser(@PathVariable UUID id) throws ResourceNotFoundException {
-        return ResponseEntity.ok(userService.getUser(id));
+    public ResponseEntity<UserProfileDto> getUser(@PathVariable UUID id,
+                                                  @RequestParam(required = false) List<String> expand,
+                                                  @RequestParam(required = false) List<String> fields,
+                                                  WebRequest request)
+            throws ResourceNotFoundException {
+        List<String> requested = new ArrayList<>();
+        if (expand != null) {
+            requested.addAll(expand);
+        }
+        if (fields != null) {
+            requested.addAll(fields);
+        }
+        Set<UserExpansion> expansions = UserExpansion.parse(requested);
+        if (notModified(id, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok(expansions.isEmpty()
+                ? userService.getUser(id)
+                : userService.getUser(id, expansions));
     }
 
     @PostMapping("/follow")
-    public ResponseEntity<UserDto> follow(@RequestBody FollowDto followDto) throws ResourceNotFoundException {
+    public ResponseEntity<FollowResultDto> follow(@RequestBody FollowDto followDto) throws ResourceNotFoundException {
         return ResponseEntity.ok(userService.follow(followDto));
     }
 
     @PostMapping("/unfollow")
-    public ResponseEntity<Void> unfollow(@RequestBody FollowDto followDto) throws ResourceNotFoundException {
-        userService.unfollow(followDto);
-        return ResponseEntity.ok().build();
+    public ResponseEntity<FollowResultDto> unfollow(@RequestBody FollowDto followDto) throws ResourceNotFoundException {
+        return ResponseEntity.ok(userService.unfollow(followDto));
+    }
+
+    @PostMapping("/follow/batch")
+    public ResponseEntity<List<FollowResultDto>> followBatch(@RequestBody List<FollowDto> pairs) {
+        return ResponseEntity.ok(userService.followBatch(pairs));
+    }
+
+    @PostMapping("/unfollow/batch")
+    public ResponseEntity<List<FollowResultDto>> unfollowBatch(@RequestBody List<FollowDto> pairs) {
+        return ResponseEntity.ok(userService.unfollowBatch(pairs));
+    }
+
+    @GetMapping("/{id}/counts")
+    public ResponseEntity<FollowCountsDto> getFollowCounts(@PathVariable UUID id) throws ResourceNotFoundException {
+        return ResponseEntity.ok(userService.getFollowCounts(id));
+    }
+
+    @GetMapping("/{id}/relationship/{otherId}")
+    public ResponseEntity<RelationshipDto> getRelationship(@PathVariable UUID id, @PathVariable UUID otherId) {
+        return ResponseEntity.ok(userService.getRelationship(id, otherId));
+    }
+
+    @PostMapping("/{id}/relationships")
+    public ResponseEntity<RelationshipsDto> getRelationships(@PathVariable UUID id, @RequestBody List<UUID> targetIds) {
+        return ResponseEntity.ok(userService.getRelationships(id, targetIds));
+    }
+
+    @GetMapping("/{id}/suggestions")
+    public ResponseEntity<List<SuggestionDto>> getSuggestions(@PathVariable UUID id,
+                                                              @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(userService.getSuggestions(id, limit));
     }
 
     @GetMapping("/{id}/followers")
-    public ResponseEntity<List<UserDto>> getFollowers(@PathVariable UUID id) throws ResourceNotFoundException {
-        return ResponseEntity.ok(userService.getFollowers(id));
+    public ResponseEntity<UserPageDto> getFollowers(@PathVariable UUID id,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "50") int limit,
+                                                    WebRequest request)
+            throws ResourceNotFoundException {
+        if (notModified(id, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok(userService.getFollowers(id, cursor, limit));
+    }
+
+    @GetMapping("/{id}/following")
+    public ResponseEntity<UserPageDto> getFollowing(@PathVariable UUID id,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "50") int limit,
+                                                    WebRequest request)
+            throws ResourceNotFoundException {
+        if (notModified(id, request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok(userService.getFollowing(id, cursor, limit));
+    }
+
+    /**
+     * Answers If-None-Match and If-Modified-Since from the cached version of the user, and sets
+     * the ETag and Last-Modified headers of a full response. The ETag is strong: the version
+     * changes with every change that alters any representation of the user.
+     */
+    private boolean notModified(UUID id, WebRequest request) throws ResourceNotFoundException {
+        UserVersionDto version = userService.getUserVersion(id);
+        return request.checkNotModified(String.valueOf(version.getVersion()), version.getLastModified());
     }
-}
\ No newline at end of file
+}
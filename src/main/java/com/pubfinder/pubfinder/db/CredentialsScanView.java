@@ -0,0 +1,11 @@
+package com.pubfinder.pubfinder.db;
+
+import java.util.UUID;
+
+/**
+ * Projection of the unique login columns of a user, keyed for keyset scans.
+ */
+public interface CredentialsScanView extends CredentialsView {
+
+  UUID getId();
+}
@@ -0,0 +1,11 @@
+package com.pubfinder.pubfinder.db;
+
+/**
+ * Projection of the unique login columns of a user.
+ */
+public interface CredentialsView {
+
+  String getEmail();
+
+  String getUsername();
+}
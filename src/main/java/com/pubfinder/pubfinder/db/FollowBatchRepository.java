@@ -0,0 +1,92 @@
+package com.pubfinder.pubfinder.db;
+
+import com.pubfinder.pubfinder.dto.FollowDto;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC batched writes to user_following. Each method sends its statements in one round-trip and
+ * participates in the surrounding JPA transaction.
+ */
+@Repository
+public class FollowBatchRepository {
+
+  private static final String INSERT_FOLLOWING = "INSERT INTO user_following (user_id, following_id) "
+      + "SELECT u.id, ? FROM users u WHERE u.id = ? "
+      + "AND NOT EXISTS (SELECT 1 FROM user_following f WHERE f.user_id = ? AND f.following_id = ?)";
+
+  private static final String DELETE_FOLLOWING =
+      "DELETE FROM user_following WHERE user_id = ? AND following_id = ?";
+
+  private static final String ADJUST_FOLLOW_COUNTS = "UPDATE users SET "
+      + "following_count = following_count + ?, follower_count = follower_count + ?, "
+      + "version = version + 1, updated_at = GREATEST(updated_at, clock_timestamp()) WHERE id = ?";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  /**
+   * Insert the follow edges that do not exist yet.
+   *
+   * @param pairs the edges
+   * @return the number of rows inserted per edge, in the order of {@code pairs}
+   */
+  public int[] insertFollowing(List<FollowDto> pairs) {
+    return jdbcTemplate.batchUpdate(INSERT_FOLLOWING, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        FollowDto pair = pairs.get(i);
+        ps.setObject(1, pair.getFollowId());
+        ps.setObject(2, pair.getUserId());
+        ps.setObject(3, pair.getUserId());
+        ps.setObject(4, pair.getFollowId());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return pairs.size();
+      }
+    });
+  }
+
+  /**
+   * Delete the given follow edges.
+   *
+   * @param pairs the edges
+   * @return the number of rows deleted per edge, in the order of {@code pairs}
+   */
+  public int[] deleteFollowing(List<FollowDto> pairs) {
+    return jdbcTemplate.batchUpdate(DELETE_FOLLOWING, new BatchPreparedStatementSetter() {
+      @Override
+      public void setValues(PreparedStatement ps, int i) throws SQLException {
+        FollowDto pair = pairs.get(i);
+        ps.setObject(1, pair.getUserId());
+        ps.setObject(2, pair.getFollowId());
+      }
+
+      @Override
+      public int getBatchSize() {
+        return pairs.size();
+      }
+    });
+  }
+
+  /**
+   * Apply counter deltas, one statement per user.
+   *
+   * @param deltas per user id, the following delta at index 0 and the follower delta at index 1
+   */
+  public void adjustFollowCounts(Map<UUID, int[]> deltas) {
+    List<Object[]> args = new ArrayList<>(deltas.size());
+    deltas.forEach((id, delta) -> args.add(new Object[] {delta[0], delta[1], id}));
+    jdbcTemplate.batchUpdate(ADJUST_FOLLOW_COUNTS, args);
+  }
+}
@@ -0,0 +1,11 @@
+package com.pubfinder.pubfinder.db;
+
+/**
+ * Projection of the denormalized relationship counters of a user.
+ */
+public interface FollowCountsView {
+
+  long getFollowerCount();
+
+  long getFollowingCount();
+}
@@ -0,0 +1,13 @@
+package com.pubfinder.pubfinder.db;
+
+import java.util.UUID;
+
+/**
+ * Projection of one row of user_following: {@code userId} follows {@code followingId}.
+ */
+public interface FollowEdgeView {
+
+  UUID getUserId();
+
+  UUID getFollowingId();
+}
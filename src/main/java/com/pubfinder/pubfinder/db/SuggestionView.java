@@ -0,0 +1,13 @@
+package com.pubfinder.pubfinder.db;
+
+import java.util.UUID;
+
+/**
+ * Projection of a suggested user and the number of the requesting user's followees that follow it.
+ */
+public interface SuggestionView {
+
+  UUID getId();
+
+  long getSharedFollowees();
+}
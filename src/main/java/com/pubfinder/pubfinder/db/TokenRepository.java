@@ -5,14 +5,39 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface TokenRepository extends JpaRepository<Token, UUID> {
 
   Optional<Token> findByToken(String token);
 
-  @Query("SELECT t FROM Token t INNER JOIN User u "
-      + "ON t.user.id = u.id "
-      + "where u.id = :id")
+  @Query("SELECT t FROM Token t WHERE t.user.id = :id")
   List<Token> findAllTokensByUser(UUID id);
+
+  /**
+   * Deletes every token of a user in one statement.
+   *
+   * @return the number of tokens deleted
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM Token t WHERE t.user.id = :userId")
+  int deleteAllByUserId(UUID userId);
+
+  /**
+   * Deletes up to {@code limit} revoked or expired tokens. Rows locked by a concurrent purge on
+   * another instance are skipped instead of waited for, so replicas running the same schedule
+   * split the work.
+   *
+   * @return the number of tokens deleted
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "DELETE FROM token WHERE id IN "
+      + "(SELECT t.id FROM token t WHERE t.revoked = true OR t.expired = true LIMIT :limit "
+      + "FOR UPDATE SKIP LOCKED)",
+      nativeQuery = true)
+  int deleteDeadTokens(int limit);
 }
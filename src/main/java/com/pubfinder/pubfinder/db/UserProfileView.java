@@ -0,0 +1,14 @@
+package com.pubfinder.pubfinder.db;
+
+import java.time.Instant;
+
+/**
+ * Projection of the public profile of a user: the summary fields, the relationship counters and
+ * the version of the representation.
+ */
+public interface UserProfileView extends UserSummaryView, FollowCountsView {
+
+  long getVersion();
+
+  Instant getUpdatedAt();
+}
@@ -2,7 +2,11 @@ package com.pubfinder.pubfinder.db;
 
 import com.pubfinder.pubfinder.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,4 +15,184 @@ public interface UserRepository extends JpaRepository<User, UUID> {
   Optional<User> findByEmail(String email);
 
   Optional<User> findByUsername(String username);
-}
\ No newline at end of file
+
+  /**
+   * Finds the users holding the given email or username, checking both unique columns in one query.
+   */
+  @Query("SELECT u.email AS email, u.username AS username FROM User u "
+      + "WHERE u.email = :email OR u.username = :username")
+  List<CredentialsView> findCredentialsByEmailOrUsername(String email, String username);
+
+  /**
+   * Keyset page of the users following {@code id}, ordered by follower id.
+   */
+  @Query(value = "SELECT u.id AS id, u.username AS username, u.firstname AS firstname, u.lastname AS lastname "
+      + "FROM user_following f JOIN users u ON u.id = f.user_id "
+      + "WHERE f.following_id = :id AND f.user_id > :after "
+      + "ORDER BY f.user_id LIMIT :limit", nativeQuery = true)
+  List<UserSummaryView> findFollowersPage(UUID id, UUID after, int limit);
+
+  /**
+   * Keyset page of the users {@code id} follows, ordered by followed id.
+   */
+  @Query(value = "SELECT u.id AS id, u.username AS username, u.firstname AS firstname, u.lastname AS lastname "
+      + "FROM user_following f JOIN users u ON u.id = f.following_id "
+      + "WHERE f.user_id = :id AND f.following_id > :after "
+      + "ORDER BY f.following_id LIMIT :limit", nativeQuery = true)
+  List<UserSummaryView> findFollowingPage(UUID id, UUID after, int limit);
+
+  boolean existsByUsername(String username);
+
+  boolean existsByEmail(String email);
+
+  @Query(value = "SELECT u.id AS id, u.email AS email, u.username AS username FROM users u "
+      + "WHERE u.id > :after ORDER BY u.id LIMIT :limit", nativeQuery = true)
+  List<CredentialsScanView> findCredentialsPage(UUID after, int limit);
+
+  @Query(value = "SELECT u.id AS id, u.username AS username, u.firstname AS firstname, u.lastname AS lastname "
+      + "FROM users u WHERE u.id > :after ORDER BY u.id LIMIT :limit", nativeQuery = true)
+  List<UserSummaryView> findSummaryPage(UUID after, int limit);
+
+  /**
+   * Users whose lower-cased username matches the pattern. Only used until the search index is
+   * built.
+   */
+  @Query(value = "SELECT u.id AS id, u.username AS username, u.firstname AS firstname, u.lastname AS lastname "
+      + "FROM users u WHERE lower(u.username) LIKE :pattern ESCAPE '\\' ORDER BY lower(u.username) LIMIT :limit",
+      nativeQuery = true)
+  List<UserSummaryView> findByUsernamePattern(String pattern, int limit);
+
+  Optional<FollowCountsView> findFollowCountsById(UUID id);
+
+  Optional<UserProfileView> findProfileById(UUID id);
+
+  List<UserProfileView> findProfilesByIdIn(Collection<UUID> ids);
+
+  @Query(value = "SELECT f.following_id FROM user_following f WHERE f.user_id = :id ORDER BY f.following_id",
+      nativeQuery = true)
+  List<UUID> findFollowingIds(UUID id);
+
+  @Query(value = "SELECT f.user_id FROM user_following f WHERE f.following_id = :id ORDER BY f.user_id",
+      nativeQuery = true)
+  List<UUID> findFollowerIds(UUID id);
+
+  @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+  List<UUID> findExistingIds(Collection<UUID> ids);
+
+  /**
+   * Inserts the follow edge unless it already exists.
+   *
+   * @return 1 if the edge was inserted, 0 if it was already there
+   */
+  @Modifying
+  @Query(value = "INSERT INTO user_following (user_id, following_id) "
+      + "SELECT u.id, :followId FROM users u WHERE u.id = :userId "
+      + "AND NOT EXISTS (SELECT 1 FROM user_following f WHERE f.user_id = :userId AND f.following_id = :followId)",
+      nativeQuery = true)
+  int insertFollowing(UUID userId, UUID followId);
+
+  @Modifying
+  @Query(value = "DELETE FROM user_following WHERE user_id = :userId AND following_id = :followId",
+      nativeQuery = true)
+  int deleteFollowing(UUID userId, UUID followId);
+
+  @Query(value = "SELECT f.following_id FROM user_following f WHERE f.user_id = :id "
+      + "UNION SELECT f.user_id FROM user_following f WHERE f.following_id = :id", nativeQuery = true)
+  List<UUID> findNeighbourIds(UUID id);
+
+  /**
+   * Keyset page over all follow edges in primary key order.
+   */
+  @Query(value = "SELECT f.user_id AS \"userId\", f.following_id AS \"followingId\" FROM user_following f "
+      + "WHERE (f.user_id, f.following_id) > (:afterUser, :afterFollowing) "
+      + "ORDER BY f.user_id, f.following_id LIMIT :limit", nativeQuery = true)
+  List<FollowEdgeView> findFollowEdgesPage(UUID afterUser, UUID afterFollowing, int limit);
+
+  /**
+   * The follower side of the edges between two users, in either direction: contains
+   * {@code userId} if it follows {@code otherId} and {@code otherId} if it follows back.
+   */
+  @Query(value = "SELECT f.user_id FROM user_following f "
+      + "WHERE (f.user_id = :userId AND f.following_id = :otherId) "
+      + "OR (f.user_id = :otherId AND f.following_id = :userId)", nativeQuery = true)
+  List<UUID> findFollowEdgesBetween(UUID userId, UUID otherId);
+
+  /**
+   * The edges between a user and any of the targets, in either direction.
+   */
+  @Query(value = "SELECT f.user_id AS \"userId\", f.following_id AS \"followingId\" FROM user_following f "
+      + "WHERE (f.user_id = :id AND f.following_id IN :targets) "
+      + "OR (f.following_id = :id AND f.user_id IN :targets)", nativeQuery = true)
+  List<FollowEdgeView> findFollowEdgesWith(UUID id, Collection<UUID> targets);
+
+  /**
+   * Users followed by the users {@code id} follows, that {@code id} does not follow yet, ranked
+   * by how many of its followees follow them. Only used until the follow graph is loaded.
+   */
+  @Query(value = "SELECT f2.following_id AS \"id\", COUNT(*) AS \"sharedFollowees\" "
+      + "FROM user_following f1 JOIN user_following f2 ON f2.user_id = f1.following_id "
+      + "WHERE f1.user_id = :id AND f2.following_id <> :id "
+      + "AND NOT EXISTS (SELECT 1 FROM user_following f3 WHERE f3.user_id = :id AND f3.following_id = f2.following_id) "
+      + "GROUP BY f2.following_id ORDER BY COUNT(*) DESC, f2.following_id LIMIT :limit", nativeQuery = true)
+  List<SuggestionView> findSuggestions(UUID id, int limit);
+
+  @Modifying
+  @Query(value = "DELETE FROM user_following WHERE user_id = :id OR following_id = :id", nativeQuery = true)
+  int deleteAllFollowEdges(UUID id);
+
+  /**
+   * Deletes the user row without loading the entity or its collections. The follow edges and
+   * tokens have to be gone already.
+   */
+  @Modifying
+  @Query("DELETE FROM User u WHERE u.id = :id")
+  int deleteDirectlyById(UUID id);
+
+  /**
+   * Moves the following counter of {@code userId} and the follower counter of {@code followId}
+   * by {@code delta} in a single statement.
+   */
+  @Modifying
+  @Query(value = "UPDATE users SET "
+      + "following_count = following_count + CASE WHEN id = :userId THEN :delta ELSE 0 END, "
+      + "follower_count = follower_count + CASE WHEN id = :followId THEN :delta ELSE 0 END, "
+      + "version = version + 1, updated_at = GREATEST(updated_at, clock_timestamp()) "
+      + "WHERE id IN (:userId, :followId)", nativeQuery = true)
+  int adjustFollowCounts(UUID userId, UUID followId, int delta);
+
+  /**
+   * Bump the version of users whose representation changed without a counter update, e.g. a
+   * rename that shows in the lists of its neighbours.
+   */
+  @Modifying
+  @Query(value = "UPDATE users SET version = version + 1, "
+      + "updated_at = GREATEST(updated_at, clock_timestamp()) WHERE id IN :ids", nativeQuery = true)
+  int touch(Collection<UUID> ids);
+
+  @Modifying
+  @Query(value = "UPDATE users SET follower_count = follower_count - 1, "
+      + "version = version + 1, updated_at = GREATEST(updated_at, clock_timestamp()) "
+      + "WHERE id IN (SELECT f.following_id FROM user_following f WHERE f.user_id = :id)", nativeQuery = true)
+  int decrementFollowerCountsOfFollowing(UUID id);
+
+  @Modifying
+  @Query(value = "UPDATE users SET following_count = following_count - 1, "
+      + "version = version + 1, updated_at = GREATEST(updated_at, clock_timestamp()) "
+      + "WHERE id IN (SELECT f.user_id FROM user_following f WHERE f.following_id = :id)", nativeQuery = true)
+  int decrementFollowingCountsOfFollowers(UUID id);
+
+  /**
+   * Recomputes the counters from user_following for every user whose counters have drifted.
+   *
+   * @return the number of users repaired
+   */
+  @Modifying
+  @Query(value = "UPDATE users SET "
+      + "follower_count = (SELECT COUNT(*) FROM user_following f WHERE f.following_id = users.id), "
+      + "following_count = (SELECT COUNT(*) FROM user_following f WHERE f.user_id = users.id), "
+      + "version = version + 1, updated_at = GREATEST(updated_at, clock_timestamp()) "
+      + "WHERE follower_count <> (SELECT COUNT(*) FROM user_following f WHERE f.following_id = users.id) "
+      + "OR following_count <> (SELECT COUNT(*) FROM user_following f WHERE f.user_id = users.id)",
+      nativeQuery = true)
+  int reconcileFollowCounts();
+}
@@ -0,0 +1,17 @@
+package com.pubfinder.pubfinder.db;
+
+import java.util.UUID;
+
+/**
+ * Projection of the columns needed to render a user in a list.
+ */
+public interface UserSummaryView {
+
+  UUID getId();
+
+  String getUsername();
+
+  String getFirstname();
+
+  String getLastname();
+}
@@ -0,0 +1,17 @@
+package com.pubfinder.pubfinder.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityDto {
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+}
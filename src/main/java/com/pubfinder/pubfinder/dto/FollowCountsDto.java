@@ -0,0 +1,17 @@
+package com.pubfinder.pubfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FollowCountsDto implements Serializable {
+    private long followers;
+    private long following;
+}
@@ -0,0 +1,19 @@
+package com.pubfinder.pubfinder.dto;
+
+import com.pubfinder.pubfinder.models.enums.FollowStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FollowResultDto {
+    private UUID userId;
+    private UUID followId;
+    private FollowStatus status;
+}
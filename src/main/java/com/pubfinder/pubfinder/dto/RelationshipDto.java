@@ -0,0 +1,20 @@
+package com.pubfinder.pubfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RelationshipDto implements Serializable {
+    private UUID userId;
+    private UUID otherId;
+    private boolean following;
+    private boolean followedBy;
+}
@@ -0,0 +1,25 @@
+package com.pubfinder.pubfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Follow status of a user towards a list of targets. Bit {@code i} of each bitmap belongs to
+ * target {@code i}: byte {@code i / 8}, mask {@code 1 << (i % 8)}, base64 encoded. Trailing
+ * zero bytes are omitted.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RelationshipsDto implements Serializable {
+    private UUID userId;
+    private int count;
+    private String following;
+    private String followedBy;
+}
@@ -0,0 +1,15 @@
+package com.pubfinder.pubfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SuggestionDto {
+    private UserSummaryDto user;
+    private int sharedFollowees;
+}
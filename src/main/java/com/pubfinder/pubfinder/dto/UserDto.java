@@ -1,5 +1,7 @@
 package com.pubfinder.pubfinder.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,7 +22,12 @@ public class UserDto implements Serializable {
     private String firstname;
     private String lastname;
     private String email;
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
+    private long followerCount;
+    private long followingCount;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<UserDto> following;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<UserDto> followers;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.pubfinder.pubfinder.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * One entry of a multi-get. {@code user} is absent when no user has the id.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserLookupDto implements Serializable {
+
+    private UUID id;
+    private boolean found;
+    private UserProfileDto user;
+}
@@ -0,0 +1,17 @@
+package com.pubfinder.pubfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserPageDto {
+    private List<UserSummaryDto> users;
+    private String nextCursor;
+}
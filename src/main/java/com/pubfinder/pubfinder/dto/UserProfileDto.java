@@ -0,0 +1,31 @@
+package com.pubfinder.pubfinder.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Public profile of a user. The relationship lists are only present when they were requested.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserProfileDto implements Serializable {
+
+    private UUID id;
+    private String username;
+    private String firstname;
+    private String lastname;
+    private long followerCount;
+    private long followingCount;
+    private List<UserSummaryDto> following;
+    private List<UserSummaryDto> followers;
+}
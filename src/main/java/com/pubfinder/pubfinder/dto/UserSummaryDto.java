@@ -0,0 +1,21 @@
+package com.pubfinder.pubfinder.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserSummaryDto implements Serializable {
+
+    private UUID id;
+    private String username;
+    private String firstname;
+    private String lastname;
+}
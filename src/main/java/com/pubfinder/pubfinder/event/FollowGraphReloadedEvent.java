@@ -0,0 +1,17 @@
+package com.pubfinder.pubfinder.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published by {@link com.pubfinder.pubfinder.service.FollowGraphService} once its graph holds
+ * the edges of users that changed on another instance, or, after a rebuild, every edge.
+ *
+ * @param userIds the ids of the reloaded users, or {@code null} after a rebuild
+ */
+public record FollowGraphReloadedEvent(Set<UUID> userIds) {
+
+  public boolean rebuilt() {
+    return userIds == null;
+  }
+}
@@ -0,0 +1,14 @@
+package com.pubfinder.pubfinder.event;
+
+import com.pubfinder.pubfinder.dto.FollowDto;
+import java.util.List;
+
+/**
+ * Published by {@link com.pubfinder.pubfinder.service.UserService} for follow edges that were
+ * actually written, so in-memory views of the follow graph can apply them after commit.
+ *
+ * @param edges    the edges that were added or removed
+ * @param followed true if the edges were added, false if they were removed
+ */
+public record FollowsChangedEvent(List<FollowDto> edges, boolean followed) {
+}
@@ -0,0 +1,12 @@
+package com.pubfinder.pubfinder.event;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link com.pubfinder.pubfinder.service.UserService} when the tokens of a user have
+ * been deleted.
+ *
+ * @param userId the id of the user
+ */
+public record TokensRevokedEvent(UUID userId) {
+}
@@ -0,0 +1,12 @@
+package com.pubfinder.pubfinder.event;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link com.pubfinder.pubfinder.service.UserService} when a user and all of its
+ * follow edges have been deleted.
+ *
+ * @param userId the id of the deleted user
+ */
+public record UserDeletedEvent(UUID userId) {
+}
@@ -0,0 +1,15 @@
+package com.pubfinder.pubfinder.event;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link com.pubfinder.pubfinder.service.UserService} when a user was registered or
+ * its username or display name may have changed.
+ *
+ * @param userId    the id of the user
+ * @param username  the current username
+ * @param firstname the current first name
+ * @param lastname  the current last name
+ */
+public record UserNamesChangedEvent(UUID userId, String username, String firstname, String lastname) {
+}
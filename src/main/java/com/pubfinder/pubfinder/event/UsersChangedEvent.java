@@ -0,0 +1,13 @@
+package com.pubfinder.pubfinder.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published by {@link com.pubfinder.pubfinder.service.UserService} whenever the stored state
+ * behind the cached representation of the given users changes.
+ *
+ * @param userIds the ids of the changed users
+ */
+public record UsersChangedEvent(Set<UUID> userIds) {
+}
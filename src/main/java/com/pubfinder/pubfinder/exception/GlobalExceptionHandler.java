@@ -1,5 +1,6 @@
 package com.pubfinder.pubfinder.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -25,6 +26,13 @@ public class GlobalExceptionHandler {
       return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
   }
 
+  @ExceptionHandler(value = ServiceUnavailableException.class)
+  public ResponseEntity<String> handleServiceUnavailableException(ServiceUnavailableException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(ex.getMessage());
+  }
+
   @ExceptionHandler(value = BadCredentialsException.class)
   public ResponseEntity<String> handleBadCredentialsException(BadCredentialsException ex) {
     return new ResponseEntity<>("Bad Credentials", HttpStatus.UNAUTHORIZED);
@@ -0,0 +1,13 @@
+package com.pubfinder.pubfinder.exception;
+
+import java.io.Serial;
+
+public class ServiceUnavailableException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public ServiceUnavailableException(String msg) {
+        super(msg);
+    }
+}
@@ -1,6 +1,11 @@
 package com.pubfinder.pubfinder.mapper;
 
+import com.pubfinder.pubfinder.cache.CachedUser;
+import com.pubfinder.pubfinder.db.UserProfileView;
+import com.pubfinder.pubfinder.db.UserSummaryView;
 import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.dto.UserSummaryDto;
 import com.pubfinder.pubfinder.models.User;
 import org.mapstruct.factory.Mappers;
 
@@ -11,6 +16,22 @@ public interface Mapper {
 
   UserDto entityToDto(User entity);
 
+  /**
+   * Maps the account fields and counters of a user without touching its relationships.
+   */
+  UserDto entityToAccountDto(User entity);
+
   User dtoToEntity(UserDto dto);
 
+  UserSummaryDto viewToSummaryDto(UserSummaryView view);
+
+  CachedUser viewToCachedUser(UserProfileView view);
+
+  /**
+   * Maps the profile scalars of a cached user. Relationships are resolved by the caller.
+   */
+  UserProfileDto cachedUserToProfileDto(CachedUser cachedUser);
+
+  UserSummaryDto cachedUserToSummaryDto(CachedUser cachedUser);
+
 }
\ No newline at end of file
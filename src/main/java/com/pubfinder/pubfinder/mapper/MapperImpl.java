@@ -1,6 +1,11 @@
 package com.pubfinder.pubfinder.mapper;
 
+import com.pubfinder.pubfinder.cache.CachedUser;
+import com.pubfinder.pubfinder.db.UserProfileView;
+import com.pubfinder.pubfinder.db.UserSummaryView;
 import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.dto.UserSummaryDto;
 import com.pubfinder.pubfinder.models.User;
 import com.pubfinder.pubfinder.models.enums.Role;
 
@@ -21,12 +26,30 @@ public class MapperImpl implements Mapper {
         .lastname(entity.getLastname())
         .email(entity.getEmail())
         .password(entity.getPassword())
+        .followerCount(entity.getFollowerCount())
+        .followingCount(entity.getFollowingCount())
         .following(entity.getFollowing().stream().map(this::entityToDtoWithoutRelationship).toList())
         .followers(entity.getFollowers().stream().map(this::entityToDtoWithoutRelationship).toList())
         .build();
   }
 
 
+  @Override
+  public UserDto entityToAccountDto(User entity) {
+    if (entity == null) {
+      return null;
+    }
+    return UserDto.builder()
+        .id(entity.getId())
+        .username(entity.getUsername())
+        .firstname(entity.getFirstname())
+        .lastname(entity.getLastname())
+        .email(entity.getEmail())
+        .followerCount(entity.getFollowerCount())
+        .followingCount(entity.getFollowingCount())
+        .build();
+  }
+
   @Override
   public User dtoToEntity(UserDto dto) {
     if (dto == null) {
@@ -43,6 +66,57 @@ public class MapperImpl implements Mapper {
         .build();
   }
 
+  @Override
+  public UserSummaryDto viewToSummaryDto(UserSummaryView view) {
+    if (view == null) {
+      return null;
+    }
+    return UserSummaryDto.builder()
+        .id(view.getId())
+        .username(view.getUsername())
+        .firstname(view.getFirstname())
+        .lastname(view.getLastname())
+        .build();
+  }
+
+  @Override
+  public CachedUser viewToCachedUser(UserProfileView view) {
+    if (view == null) {
+      return null;
+    }
+    return new CachedUser(view.getId(), view.getUsername(), view.getFirstname(), view.getLastname(),
+        view.getFollowerCount(), view.getFollowingCount(), view.getVersion(),
+        view.getUpdatedAt() == null ? 0 : view.getUpdatedAt().toEpochMilli());
+  }
+
+  @Override
+  public UserProfileDto cachedUserToProfileDto(CachedUser cachedUser) {
+    if (cachedUser == null) {
+      return null;
+    }
+    return UserProfileDto.builder()
+        .id(cachedUser.id())
+        .username(cachedUser.username())
+        .firstname(cachedUser.firstname())
+        .lastname(cachedUser.lastname())
+        .followerCount(cachedUser.followerCount())
+        .followingCount(cachedUser.followingCount())
+        .build();
+  }
+
+  @Override
+  public UserSummaryDto cachedUserToSummaryDto(CachedUser cachedUser) {
+    if (cachedUser == null) {
+      return null;
+    }
+    return UserSummaryDto.builder()
+        .id(cachedUser.id())
+        .username(cachedUser.username())
+        .firstname(cachedUser.firstname())
+        .lastname(cachedUser.lastname())
+        .build();
+  }
+
   private UserDto entityToDtoWithoutRelationship(User entity) {
     if (entity == null) {
       return null;
@@ -53,7 +127,8 @@ public class MapperImpl implements Mapper {
             .firstname(entity.getFirstname())
             .lastname(entity.getLastname())
             .email(entity.getEmail())
-            .password(entity.getPassword())
+            .followerCount(entity.getFollowerCount())
+            .followingCount(entity.getFollowingCount())
             .following(List.of())
             .followers(List.of())
             .build();
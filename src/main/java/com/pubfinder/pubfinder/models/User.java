@@ -4,7 +4,9 @@ package com.pubfinder.pubfinder.models;
 import com.pubfinder.pubfinder.models.enums.Role;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.Instant;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
@@ -36,11 +38,41 @@ public class User {
     @Enumerated(EnumType.ORDINAL)
     private Role role;
 
+    /**
+     * Denormalized relationship counters. They are only ever written by the set-based
+     * updates in {@link com.pubfinder.pubfinder.db.UserRepository}, never by merging the entity.
+     */
+    @Column(name = "follower_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long followerCount;
+    @Column(name = "following_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long followingCount;
+
+    /**
+     * Bumped together with every change to the public representation of the user, including its
+     * relationship counters and lists, by the same set-based updates. Backs the ETag and
+     * Last-Modified headers.
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long version;
+
+    /**
+     * Set by the same updates as {@link #version}. They use clock_timestamp() rather than the
+     * transaction start time, so a transaction that commits later never writes an earlier time
+     * and Last-Modified never moves backwards.
+     */
+    @Column(name = "updated_at", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    private Instant updatedAt;
+
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE, CascadeType.REFRESH})
     @JoinTable(
             name = "user_following",
             joinColumns = @JoinColumn(name = "user_id"),
-            inverseJoinColumns = @JoinColumn(name = "following_id")
+            inverseJoinColumns = @JoinColumn(name = "following_id"),
+            indexes = @Index(name = "idx_user_following_following_id", columnList = "following_id, user_id")
     )
     @Builder.Default
     Set<User> following = new HashSet<>();
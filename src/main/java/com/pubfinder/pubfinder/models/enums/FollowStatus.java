@@ -0,0 +1,10 @@
+package com.pubfinder.pubfinder.models.enums;
+
+public enum FollowStatus {
+  FOLLOWED,
+  ALREADY_FOLLOWING,
+  UNFOLLOWED,
+  NOT_FOLLOWING,
+  NOT_FOUND,
+  INVALID
+}
@@ -0,0 +1,39 @@
+package com.pubfinder.pubfinder.models.enums;
+
+import com.pubfinder.pubfinder.exception.BadRequestException;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Relationships a caller can ask to have included in a user profile.
+ */
+public enum UserExpansion {
+  FOLLOWING,
+  FOLLOWERS;
+
+  /**
+   * Parses request parameter values such as {@code following,followers}.
+   *
+   * @throws BadRequestException if a value names no known relationship
+   */
+  public static Set<UserExpansion> parse(Collection<String> values) {
+    Set<UserExpansion> expansions = EnumSet.noneOf(UserExpansion.class);
+    if (values == null) {
+      return expansions;
+    }
+    for (String value : values) {
+      if (value.isBlank()) {
+        continue;
+      }
+      try {
+        expansions.add(valueOf(value.trim().toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException e) {
+        throw new BadRequestException("Unknown expansion: " + value.trim());
+      }
+    }
+    return expansions;
+  }
+}
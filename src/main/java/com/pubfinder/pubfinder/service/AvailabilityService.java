@@ -0,0 +1,207 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.cache.CacheInvalidationBus;
+import com.pubfinder.pubfinder.cache.CacheInvalidationListener;
+import com.pubfinder.pubfinder.db.CredentialsScanView;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.dto.AvailabilityDto;
+import com.pubfinder.pubfinder.util.BloomFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers username/email availability from an in-memory Bloom filter of the taken values. Only a
+ * possible hit goes to the database, so most "available" answers never touch Postgres.
+ *
+ * <p>Values are added on register and edit, and announced to the other instances through the
+ * {@link CacheInvalidationBus} so their filters never report a freshly taken value as available.
+ * A Bloom filter cannot forget, so values freed by delete or edit stay "possibly taken" (and are
+ * checked against the database) until the next periodic rebuild.
+ */
+@Slf4j
+@Service
+public class AvailabilityService {
+
+  public static final String AVAILABILITY = "availability";
+
+  private static final UUID FIRST_PAGE = new UUID(0L, 0L);
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private CacheInvalidationBus invalidationBus;
+
+  @Value("${user.availability.expected-users:1000000}")
+  private long expectedUsers;
+
+  @Value("${user.availability.false-positive-rate:0.01}")
+  private double falsePositiveRate;
+
+  @Value("${user.availability.scan-page-size:10000}")
+  private int scanPageSize;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final List<String> addedDuringRebuild = new ArrayList<>();
+  private volatile BloomFilter filter;
+  private boolean rebuilding;
+
+  @PostConstruct
+  void init() {
+    invalidationBus.subscribe(AVAILABILITY, new CacheInvalidationListener() {
+      @Override
+      public void evict(Set<String> keys) {
+        add(keys.stream().map(AvailabilityService::decode).toList());
+      }
+
+      @Override
+      public void clear() {
+        CompletableFuture.runAsync(AvailabilityService.this::rebuild);
+      }
+    });
+  }
+
+  /**
+   * Check whether a username and/or an email are still free.
+   *
+   * @param username the username, or null to skip
+   * @param email    the email, or null to skip
+   * @return the availability of the requested values
+   */
+  public AvailabilityDto check(String username, String email) {
+    AvailabilityDto availability = new AvailabilityDto();
+    if (username != null) {
+      availability.setUsernameAvailable(
+          !(mightBeTaken(usernameKey(username)) && userRepository.existsByUsername(username)));
+    }
+    if (email != null) {
+      availability.setEmailAvailable(
+          !(mightBeTaken(emailKey(email)) && userRepository.existsByEmail(email)));
+    }
+    return availability;
+  }
+
+  /**
+   * Record that a username and email are now taken.
+   */
+  public void taken(String username, String email) {
+    List<String> keys = List.of(usernameKey(username), emailKey(email));
+    add(keys);
+    invalidationBus.publish(AVAILABILITY, keys.stream().map(AvailabilityService::encode).toList());
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    rebuild();
+  }
+
+  /**
+   * Rebuild the filter from a keyset scan of users, dropping values that were freed since the
+   * last build. Until the first build completes every check goes to the database.
+   */
+  @Scheduled(fixedDelayString = "${user.availability.rebuild-interval:PT1H}",
+      initialDelayString = "${user.availability.rebuild-interval:PT1H}")
+  public void rebuild() {
+    lock.lock();
+    try {
+      if (rebuilding) {
+        return;
+      }
+      rebuilding = true;
+      addedDuringRebuild.clear();
+    } finally {
+      lock.unlock();
+    }
+
+    BloomFilter next = null;
+    try {
+      long start = System.nanoTime();
+      long users = 0;
+      next = BloomFilter.create(expectedUsers * 2, falsePositiveRate);
+      UUID after = FIRST_PAGE;
+      List<CredentialsScanView> page;
+      do {
+        page = userRepository.findCredentialsPage(after, scanPageSize);
+        for (CredentialsScanView row : page) {
+          next.put(usernameKey(row.getUsername()));
+          next.put(emailKey(row.getEmail()));
+          after = row.getId();
+        }
+        users += page.size();
+      } while (page.size() == scanPageSize);
+      log.info("Built availability filter over {} users in {} ms", users, (System.nanoTime() - start) / 1_000_000);
+    } catch (RuntimeException e) {
+      log.warn("Failed to rebuild the availability filter, keeping the previous one", e);
+      next = null;
+    } finally {
+      lock.lock();
+      try {
+        if (next != null) {
+          addedDuringRebuild.forEach(next::put);
+          filter = next;
+        }
+        addedDuringRebuild.clear();
+        rebuilding = false;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void add(List<String> keys) {
+    lock.lock();
+    try {
+      BloomFilter current = filter;
+      if (current != null) {
+        keys.forEach(current::put);
+      }
+      if (rebuilding) {
+        addedDuringRebuild.addAll(keys);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean mightBeTaken(String key) {
+    BloomFilter current = filter;
+    boolean possible = current == null || current.mightContain(key);
+    meterRegistry.counter("user.availability.checks", "answeredBy", possible ? "database" : "filter").increment();
+    return possible;
+  }
+
+  private static String usernameKey(String username) {
+    return "u:" + username;
+  }
+
+  private static String emailKey(String email) {
+    return "e:" + email;
+  }
+
+  /** Usernames and emails may contain the bus' separators, so keys travel Base64 encoded. */
+  private static String encode(String key) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decode(String key) {
+    return new String(Base64.getUrlDecoder().decode(key), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,34 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.db.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repairs drift between the denormalized follow counters on users and the rows in user_following.
+ */
+@Slf4j
+@Service
+public class FollowCountReconciler {
+
+  @Autowired
+  private UserRepository userRepository;
+
+  /**
+   * Reconcile the follow counters.
+   *
+   * @return the number of users whose counters were repaired
+   */
+  @Scheduled(cron = "${user.follow-counts.reconcile-cron:0 0 4 * * *}")
+  @Transactional
+  public int reconcile() {
+    int repaired = userRepository.reconcileFollowCounts();
+    if (repaired > 0) {
+      log.warn("Repaired follow counters of {} users", repaired);
+    }
+    return repaired;
+  }
+}
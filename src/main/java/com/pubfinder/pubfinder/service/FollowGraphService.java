@@ -0,0 +1,246 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.cache.CacheInvalidationBus;
+import com.pubfinder.pubfinder.cache.CacheInvalidationListener;
+import com.pubfinder.pubfinder.db.FollowEdgeView;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.event.FollowGraphReloadedEvent;
+import com.pubfinder.pubfinder.event.FollowsChangedEvent;
+import com.pubfinder.pubfinder.event.UserDeletedEvent;
+import com.pubfinder.pubfinder.util.FollowGraph;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the {@link FollowGraph} of all follow edges in memory.
+ *
+ * <p>The graph is built from a keyset scan of user_following before the application reports
+ * ready. Committed follows, unfollows and deletions are applied locally and announced to the
+ * other instances through the {@link CacheInvalidationBus}, which re-read the edges of the
+ * announced users and then publish a {@link FollowGraphReloadedEvent}, so caches derived from
+ * the graph are evicted only once it has the change. A periodic rebuild repairs any drift.
+ *
+ * <p>Until the first build completes {@link #graph()} is empty and callers use the database.
+ */
+@Slf4j
+@Service
+public class FollowGraphService {
+
+  public static final String FOLLOW_GRAPH = "followGraph";
+
+  private static final UUID FIRST_PAGE = new UUID(0L, 0L);
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private CacheInvalidationBus invalidationBus;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Value("${user.follow-graph.scan-page-size:50000}")
+  private int scanPageSize;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final List<Consumer<FollowGraph>> changedDuringRebuild = new ArrayList<>();
+  private final List<List<Consumer<FollowGraph>>> changedDuringReload = new ArrayList<>();
+  private volatile FollowGraph graph;
+  private boolean rebuilding;
+
+  @PostConstruct
+  void init() {
+    invalidationBus.subscribe(FOLLOW_GRAPH, new CacheInvalidationListener() {
+      @Override
+      public void evict(Set<String> userIds) {
+        reload(userIds.stream().map(UUID::fromString).toList());
+      }
+
+      @Override
+      public void clear() {
+        CompletableFuture.runAsync(FollowGraphService.this::rebuild);
+      }
+    });
+    Gauge.builder("user.follow.graph.nodes", this, s -> s.graph == null ? 0 : s.graph.nodeCount())
+        .register(meterRegistry);
+    Gauge.builder("user.follow.graph.edges", this, s -> s.graph == null ? 0 : s.graph.edgeCount())
+        .register(meterRegistry);
+    Gauge.builder("user.follow.graph.size", this, s -> s.graph == null ? 0 : s.graph.estimatedBytes())
+        .baseUnit("bytes")
+        .description("Estimated heap used by the follow graph")
+        .register(meterRegistry);
+  }
+
+  /**
+   * @return the graph, or empty until it has been built
+   */
+  public Optional<FollowGraph> graph() {
+    return Optional.ofNullable(graph);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    rebuild();
+  }
+
+  /**
+   * Runs before the other listeners of the event, so caches derived from the graph, e.g. the
+   * suggestions, are evicted only once the graph has the change.
+   */
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onFollowsChanged(FollowsChangedEvent event) {
+    apply(current -> {
+      for (FollowDto edge : event.edges()) {
+        if (event.followed()) {
+          current.follow(edge.getUserId(), edge.getFollowId());
+        } else {
+          current.unfollow(edge.getUserId(), edge.getFollowId());
+        }
+      }
+    });
+    Set<String> userIds = new HashSet<>();
+    event.edges().forEach(edge -> userIds.add(edge.getUserId().toString()));
+    invalidationBus.publish(FOLLOW_GRAPH, userIds);
+  }
+
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    apply(current -> current.removeUser(event.userId()));
+    invalidationBus.publish(FOLLOW_GRAPH, List.of(event.userId().toString()));
+  }
+
+  /**
+   * Rebuild the graph from a keyset scan of all edges. Changes committed while the scan runs are
+   * applied to both the old and the new graph.
+   */
+  @Scheduled(fixedDelayString = "${user.follow-graph.rebuild-interval:PT6H}",
+      initialDelayString = "${user.follow-graph.rebuild-interval:PT6H}")
+  public void rebuild() {
+    lock.lock();
+    try {
+      if (rebuilding) {
+        return;
+      }
+      rebuilding = true;
+      changedDuringRebuild.clear();
+    } finally {
+      lock.unlock();
+    }
+
+    FollowGraph next = null;
+    try {
+      long start = System.nanoTime();
+      FollowGraph current = graph;
+      FollowGraph.Builder builder = new FollowGraph.Builder(current == null ? 1024 : current.nodeCount());
+      UUID afterUser = FIRST_PAGE;
+      UUID afterFollowing = FIRST_PAGE;
+      List<FollowEdgeView> page;
+      do {
+        page = userRepository.findFollowEdgesPage(afterUser, afterFollowing, scanPageSize);
+        for (FollowEdgeView edge : page) {
+          builder.add(edge.getUserId(), edge.getFollowingId());
+          afterUser = edge.getUserId();
+          afterFollowing = edge.getFollowingId();
+        }
+      } while (page.size() == scanPageSize);
+      next = builder.build();
+      log.info("Built follow graph with {} users and {} edges in {} ms",
+          next.nodeCount(), next.edgeCount(), (System.nanoTime() - start) / 1_000_000);
+    } catch (RuntimeException e) {
+      log.warn("Failed to rebuild the follow graph, keeping the previous one", e);
+      next = null;
+    } finally {
+      lock.lock();
+      try {
+        if (next != null) {
+          FollowGraph built = next;
+          changedDuringRebuild.forEach(change -> change.accept(built));
+          graph = built;
+        }
+        changedDuringRebuild.clear();
+        rebuilding = false;
+      } finally {
+        lock.unlock();
+      }
+    }
+    if (next != null) {
+      eventPublisher.publishEvent(new FollowGraphReloadedEvent(null));
+    }
+  }
+
+  private void apply(Consumer<FollowGraph> change) {
+    lock.lock();
+    try {
+      if (graph != null) {
+        change.accept(graph);
+      }
+      if (rebuilding) {
+        changedDuringRebuild.add(change);
+      }
+      changedDuringReload.forEach(changes -> changes.add(change));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Re-read the edges of users that changed on another instance. Local changes applied while the
+   * edges are read are applied again on top, so a read that predates them cannot undo them.
+   */
+  private void reload(List<UUID> userIds) {
+    List<Consumer<FollowGraph>> changedMeanwhile = new ArrayList<>();
+    lock.lock();
+    try {
+      changedDuringReload.add(changedMeanwhile);
+    } finally {
+      lock.unlock();
+    }
+
+    List<Consumer<FollowGraph>> replacements = new ArrayList<>();
+    try {
+      for (UUID userId : userIds) {
+        List<UUID> following = userRepository.findFollowingIds(userId);
+        List<UUID> followers = userRepository.findFollowerIds(userId);
+        replacements.add(current -> current.replaceUser(userId, following, followers));
+      }
+    } finally {
+      lock.lock();
+      try {
+        changedDuringReload.removeIf(changes -> changes == changedMeanwhile);
+        replacements.forEach(this::apply);
+        changedMeanwhile.forEach(this::apply);
+      } finally {
+        lock.unlock();
+      }
+    }
+    eventPublisher.publishEvent(new FollowGraphReloadedEvent(Set.copyOf(userIds)));
+  }
+}
@@ -0,0 +1,102 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs password hashing on a dedicated pool sized to the cores, so CPU-bound hashing during a
+ * registration spike cannot take over the servlet threads. When the bounded queue is full the
+ * caller fails fast with a 503 instead of waiting.
+ */
+@Service
+public class PasswordHashingService {
+
+  private final PasswordEncoder passwordEncoder;
+  private final ThreadPoolExecutor executor;
+  private final Duration timeout;
+  private final Timer hashTimer;
+  private final Counter rejected;
+
+  public PasswordHashingService(
+      PasswordEncoder passwordEncoder,
+      MeterRegistry meterRegistry,
+      @Value("${user.password-hashing.threads:0}") int threads,
+      @Value("${user.password-hashing.queue-capacity:64}") int queueCapacity,
+      @Value("${user.password-hashing.timeout:5s}") Duration timeout) {
+    this.passwordEncoder = passwordEncoder;
+    this.timeout = timeout;
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger threadNumber = new AtomicInteger();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), r -> {
+          Thread thread = new Thread(r, "password-hashing-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    this.executor = pool;
+    ExecutorServiceMetrics.monitor(meterRegistry, pool, "password.hashing", List.of());
+    this.hashTimer = Timer.builder("password.hashing.duration")
+        .description("Time spent hashing a password, excluding queueing")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    this.rejected = Counter.builder("password.hashing.rejected")
+        .description("Hash requests rejected because the queue was full or the wait timed out")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Encode a raw password on the hashing pool.
+   *
+   * @param rawPassword the raw password
+   * @return the encoded password
+   * @throws ServiceUnavailableException the pool is saturated
+   */
+  public String encode(CharSequence rawPassword) {
+    Future<String> hash;
+    try {
+      hash = executor.submit(() -> hashTimer.recordCallable(() -> passwordEncoder.encode(rawPassword)));
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new ServiceUnavailableException("The service is busy, please try again.");
+    }
+
+    try {
+      return hash.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      hash.cancel(true);
+      rejected.increment();
+      throw new ServiceUnavailableException("The service is busy, please try again.");
+    } catch (InterruptedException e) {
+      hash.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("The request was interrupted.");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
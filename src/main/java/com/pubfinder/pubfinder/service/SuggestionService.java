@@ -0,0 +1,182 @@
+package com.pubfinder.pubfinder.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pubfinder.pubfinder.db.SuggestionView;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.event.FollowGraphReloadedEvent;
+import com.pubfinder.pubfinder.event.FollowsChangedEvent;
+import com.pubfinder.pubfinder.event.UserDeletedEvent;
+import com.pubfinder.pubfinder.util.FollowGraph;
+import com.pubfinder.pubfinder.util.FriendsOfFriends;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Suggests users to follow: the users followed by the ones a user follows, ranked by how many of
+ * them follow each, see {@link FriendsOfFriends}. Rankings are computed from the
+ * {@link FollowGraph} on a dedicated fork/join pool and cached per user.
+ *
+ * <p>A committed follow or unfollow by a user changes the ranking of that user and of everyone
+ * following it, so those entries are evicted once the graph has the change: here after the local
+ * commit, and on the peers when their graph has reloaded the user, so a peer never recomputes an
+ * evicted ranking from its old graph. A user with more than {@code invalidation-fanout} followers
+ * only evicts its own entry; its followers see the change once their entries expire. A rebuild
+ * of the graph evicts every ranking.
+ *
+ * <p>Until the graph is loaded the ranking comes from one aggregate query and is not cached.
+ */
+@Service
+public class SuggestionService {
+
+  public static final String SUGGESTIONS = "suggestions";
+
+  /** The length of a cached ranking, and so the largest page of suggestions. */
+  public static final int MAX_SUGGESTIONS = 50;
+
+  /**
+   * A suggested user and the number of the requesting user's followees that follow it.
+   */
+  public record Suggestion(UUID id, int sharedFollowees) {
+  }
+
+  /** Suggested ids as most/least significant bit pairs, next to their shared followee counts. */
+  private record Ranking(long[] ids, int[] sharedFollowees) {
+  }
+
+  private final UserRepository userRepository;
+  private final FollowGraphService followGraphService;
+  private final ForkJoinPool pool;
+  private final Cache<UUID, Ranking> cache;
+  private final Timer rankTimer;
+  private final int maxFollowees;
+  private final int maxFanout;
+  private final int invalidationFanout;
+
+  public SuggestionService(
+      UserRepository userRepository,
+      FollowGraphService followGraphService,
+      MeterRegistry meterRegistry,
+      @Value("${user.suggestions.parallelism:0}") int parallelism,
+      @Value("${user.suggestions.max-followees:1000}") int maxFollowees,
+      @Value("${user.suggestions.max-fanout:200}") int maxFanout,
+      @Value("${user.suggestions.invalidation-fanout:10000}") int invalidationFanout,
+      @Value("${user.suggestions.cache.maximum-size:10000}") long maximumSize,
+      @Value("${user.suggestions.cache.expire-after-write:PT10M}") Duration expireAfterWrite) {
+    this.userRepository = userRepository;
+    this.followGraphService = followGraphService;
+    this.maxFollowees = maxFollowees;
+    this.maxFanout = maxFanout;
+    this.invalidationFanout = invalidationFanout;
+    this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, SUGGESTIONS);
+    this.rankTimer = Timer.builder("user.suggestions.rank.duration")
+        .description("Time spent ranking the suggestions of one user from the follow graph")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  /**
+   * Gets the best suggestions for a user. A user without follows has none.
+   *
+   * @param id    the users id
+   * @param limit the number of suggestions, at most {@link #MAX_SUGGESTIONS}
+   * @return the suggestions, best first
+   */
+  public List<Suggestion> suggest(UUID id, int limit) {
+    Optional<FollowGraph> graph = followGraphService.graph();
+    if (graph.isEmpty()) {
+      return userRepository.findSuggestions(id, limit).stream()
+          .map(view -> new Suggestion(view.getId(), (int) view.getSharedFollowees()))
+          .toList();
+    }
+
+    Ranking ranking = cache.get(id, key -> rankTimer.record(() -> rank(graph.get(), key)));
+    int size = Math.min(limit, ranking.sharedFollowees().length);
+    List<Suggestion> suggestions = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      suggestions.add(new Suggestion(new UUID(ranking.ids()[2 * i], ranking.ids()[2 * i + 1]),
+          ranking.sharedFollowees()[i]));
+    }
+    return suggestions;
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onFollowsChanged(FollowsChangedEvent event) {
+    evict(event.edges().stream().map(FollowDto::getUserId).toList());
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    cache.invalidate(event.userId());
+  }
+
+  @EventListener
+  public void onFollowGraphReloaded(FollowGraphReloadedEvent event) {
+    if (event.rebuilt()) {
+      cache.invalidateAll();
+    } else {
+      evict(event.userIds());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pool.shutdownNow();
+  }
+
+  /**
+   * Evict the rankings of the users and, below the fanout limit, of their followers.
+   */
+  private void evict(Collection<UUID> userIds) {
+    Optional<FollowGraph> graph = followGraphService.graph();
+    Set<UUID> affected = new HashSet<>();
+    for (UUID userId : userIds) {
+      if (affected.add(userId) && graph.isPresent()) {
+        int node = graph.get().node(userId);
+        if (graph.get().followerCount(node) <= invalidationFanout) {
+          for (int follower : graph.get().followers(node)) {
+            affected.add(graph.get().uuid(follower));
+          }
+        }
+      }
+    }
+    cache.invalidateAll(affected);
+  }
+
+  private Ranking rank(FollowGraph graph, UUID id) {
+    List<FriendsOfFriends.Candidate> candidates = FriendsOfFriends.rank(graph, graph.node(id),
+        maxFollowees, maxFanout, MAX_SUGGESTIONS, pool);
+    long[] ids = new long[2 * candidates.size()];
+    int[] sharedFollowees = new int[candidates.size()];
+    for (int i = 0; i < candidates.size(); i++) {
+      UUID candidate = graph.uuid(candidates.get(i).node());
+      ids[2 * i] = candidate.getMostSignificantBits();
+      ids[2 * i + 1] = candidate.getLeastSignificantBits();
+      sharedFollowees[i] = candidates.get(i).sharedFollowees();
+    }
+    return new Ranking(ids, sharedFollowees);
+  }
+}
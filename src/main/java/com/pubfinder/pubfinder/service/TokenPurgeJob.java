@@ -0,0 +1,82 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.db.TokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deletes revoked and expired tokens in small batches, each in its own short transaction, so the
+ * token table stays small without long locks or WAL spikes. A run stops at the first partial
+ * batch or when its time or row budget is spent; the rest is left for the next run.
+ */
+@Slf4j
+@Service
+public class TokenPurgeJob {
+
+  private final TokenRepository tokenRepository;
+  private final int batchSize;
+  private final long maxRowsPerRun;
+  private final Duration maxDuration;
+  private final Duration pauseBetweenBatches;
+  private final Counter purged;
+  private final Timer duration;
+
+  public TokenPurgeJob(
+      TokenRepository tokenRepository,
+      MeterRegistry meterRegistry,
+      @Value("${user.tokens.purge.batch-size:500}") int batchSize,
+      @Value("${user.tokens.purge.max-rows-per-run:100000}") long maxRowsPerRun,
+      @Value("${user.tokens.purge.max-duration:PT10S}") Duration maxDuration,
+      @Value("${user.tokens.purge.pause-between-batches:PT0.05S}") Duration pauseBetweenBatches) {
+    this.tokenRepository = tokenRepository;
+    this.batchSize = batchSize;
+    this.maxRowsPerRun = maxRowsPerRun;
+    this.maxDuration = maxDuration;
+    this.pauseBetweenBatches = pauseBetweenBatches;
+    this.purged = Counter.builder("user.tokens.purged")
+        .description("Revoked or expired tokens deleted by the purge job")
+        .register(meterRegistry);
+    this.duration = Timer.builder("user.tokens.purge.duration")
+        .description("Time spent per purge run")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Run one purge.
+   *
+   * @return the number of tokens deleted
+   */
+  @Scheduled(cron = "${user.tokens.purge.cron:0 */15 * * * *}")
+  public long purge() {
+    long start = System.nanoTime();
+    long deadline = start + maxDuration.toNanos();
+    long total = 0;
+    try {
+      while (total < maxRowsPerRun) {
+        int deleted = tokenRepository.deleteDeadTokens((int) Math.min(batchSize, maxRowsPerRun - total));
+        total += deleted;
+        purged.increment(deleted);
+        if (deleted < batchSize || System.nanoTime() >= deadline) {
+          break;
+        }
+        if (!pauseBetweenBatches.isZero()) {
+          Thread.sleep(pauseBetweenBatches.toMillis());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      duration.record(Duration.ofNanos(System.nanoTime() - start));
+    }
+    if (total > 0) {
+      log.info("Purged {} dead tokens in {} ms", total, (System.nanoTime() - start) / 1_000_000);
+    }
+    return total;
+  }
+}
@@ -0,0 +1,206 @@
+package com.pubfinder.pubfinder.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.pubfinder.pubfinder.cache.CacheInvalidationBus;
+import com.pubfinder.pubfinder.cache.CacheInvalidationListener;
+import com.pubfinder.pubfinder.db.TokenRepository;
+import com.pubfinder.pubfinder.event.TokensRevokedEvent;
+import com.pubfinder.pubfinder.models.Token;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Caches the outcome of token lookups so an auth check is a hash lookup instead of a database
+ * round-trip. Both valid (positive) and revoked or expired (negative) outcomes are cached,
+ * bounded by size, by a TTL per outcome and, for JWTs, by the token's own exp claim. Unknown
+ * tokens are not cached, since their row may be about to commit, e.g. for a client racing its
+ * own login.
+ *
+ * <p>Revoking a user's tokens records a revocation sequence number for the user; any entry of that
+ * user loaded before it is treated as a miss from then on. This takes effect as soon as the
+ * deletion commits, on this instance and, through the {@link CacheInvalidationBus}, on its peers.
+ */
+@Service
+public class TokenValidationService {
+
+  public static final String TOKEN_VALIDITY = "tokenValidity";
+
+  private record TokenValidity(UUID userId, boolean valid, long expiresAtMillis, long loadedAt) {
+  }
+
+  private record Revocation(long sequence, long atMillis) {
+  }
+
+  private final TokenRepository tokenRepository;
+  private final CacheInvalidationBus invalidationBus;
+  private final ObjectMapper objectMapper;
+  private final Duration positiveTtl;
+  private final Cache<String, TokenValidity> cache;
+  private final AtomicLong sequence = new AtomicLong();
+  private final Map<UUID, Revocation> revocations = new ConcurrentHashMap<>();
+
+  public TokenValidationService(
+      TokenRepository tokenRepository,
+      CacheInvalidationBus invalidationBus,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${user.token-cache.maximum-size:100000}") long maximumSize,
+      @Value("${user.token-cache.positive-ttl:PT5M}") Duration positiveTtl,
+      @Value("${user.token-cache.negative-ttl:PT30S}") Duration negativeTtl) {
+    this.tokenRepository = tokenRepository;
+    this.invalidationBus = invalidationBus;
+    this.objectMapper = objectMapper;
+    this.positiveTtl = positiveTtl;
+    long positiveNanos = positiveTtl.toNanos();
+    long negativeNanos = negativeTtl.toNanos();
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new Expiry<String, TokenValidity>() {
+          @Override
+          public long expireAfterCreate(String token, TokenValidity validity, long currentTime) {
+            if (!validity.valid()) {
+              return negativeNanos;
+            }
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(validity.expiresAtMillis() - System.currentTimeMillis());
+            return Math.max(0, Math.min(positiveNanos, untilExpiry));
+          }
+
+          @Override
+          public long expireAfterUpdate(String token, TokenValidity validity, long currentTime,
+              long currentDuration) {
+            return expireAfterCreate(token, validity, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(String token, TokenValidity validity, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, TOKEN_VALIDITY);
+
+    invalidationBus.subscribe(TOKEN_VALIDITY, new CacheInvalidationListener() {
+      @Override
+      public void evict(Set<String> userIds) {
+        userIds.forEach(userId -> revokeLocally(UUID.fromString(userId)));
+      }
+
+      @Override
+      public void clear() {
+        cache.invalidateAll();
+      }
+    });
+  }
+
+  /**
+   * Validate a token.
+   *
+   * @param token the token
+   * @return the id of the token's user if the token is valid, empty otherwise
+   */
+  public Optional<UUID> validate(String token) {
+    TokenValidity validity = cache.getIfPresent(token);
+    if (validity != null && revokedSince(validity)) {
+      cache.invalidate(token);
+      validity = null;
+    }
+    if (validity == null) {
+      // Taken before the read, so a revocation that races with it wins
+      long loadedAt = sequence.incrementAndGet();
+      Optional<Token> found = tokenRepository.findByToken(token);
+      if (found.isEmpty()) {
+        return Optional.empty();
+      }
+      validity = toValidity(token, found.get(), loadedAt);
+      if (revokedSince(validity)) {
+        return Optional.empty();
+      }
+      cache.put(token, validity);
+    }
+    return validity.valid() ? Optional.of(validity.userId()) : Optional.empty();
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onTokensRevoked(TokensRevokedEvent event) {
+    revokeLocally(event.userId());
+    invalidationBus.publish(TOKEN_VALIDITY, List.of(event.userId().toString()));
+  }
+
+  /**
+   * Forget revocations older than the positive TTL; every entry they could shadow has expired.
+   */
+  @Scheduled(fixedDelayString = "${user.token-cache.positive-ttl:PT5M}")
+  public void pruneRevocations() {
+    long cutoff = System.currentTimeMillis() - positiveTtl.toMillis();
+    revocations.values().removeIf(revocation -> revocation.atMillis() < cutoff);
+  }
+
+  private void revokeLocally(UUID userId) {
+    revocations.put(userId, new Revocation(sequence.incrementAndGet(), System.currentTimeMillis()));
+  }
+
+  private boolean revokedSince(TokenValidity validity) {
+    if (validity.userId() == null) {
+      return false;
+    }
+    Revocation revocation = revocations.get(validity.userId());
+    return revocation != null && revocation.sequence() > validity.loadedAt();
+  }
+
+  /**
+   * A token row without a user cannot authenticate anyone and is cached as invalid.
+   */
+  private TokenValidity toValidity(String token, Token found, long loadedAt) {
+    if (found.getUser() == null) {
+      return new TokenValidity(null, false, 0, loadedAt);
+    }
+    long expiresAtMillis = expiresAtMillis(token);
+    return new TokenValidity(found.getUser().getId(),
+        isUsable(found) && expiresAtMillis > System.currentTimeMillis(), expiresAtMillis, loadedAt);
+  }
+
+  private static boolean isUsable(Token token) {
+    return !token.isRevoked() && !token.isExpired();
+  }
+
+  /**
+   * Reads the exp claim when the token is a JWT, so a positive entry never outlives the token.
+   */
+  private long expiresAtMillis(String token) {
+    String[] parts = token.split("\\.");
+    if (parts.length == 3) {
+      try {
+        JsonNode exp = objectMapper.readTree(
+            new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)).get("exp");
+        if (exp != null && exp.canConvertToLong()) {
+          return exp.asLong() * 1000;
+        }
+      } catch (Exception e) {
+        // Not a JWT after all, fall back to the TTL
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+}
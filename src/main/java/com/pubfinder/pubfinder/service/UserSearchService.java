@@ -0,0 +1,281 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.cache.CacheInvalidationBus;
+import com.pubfinder.pubfinder.cache.CacheInvalidationListener;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.db.UserSummaryView;
+import com.pubfinder.pubfinder.event.UserDeletedEvent;
+import com.pubfinder.pubfinder.event.UserNamesChangedEvent;
+import com.pubfinder.pubfinder.util.PrefixIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Answers username and display name prefix searches from an in-memory {@link PrefixIndex}. Every
+ * user is indexed under its lower-cased username, first name, last name and full name, and the
+ * index entries carry what a result needs, so a search never touches the database.
+ *
+ * <p>Registrations, edits and deletions are applied once committed and announced to the other
+ * instances through the {@link CacheInvalidationBus}, which re-read the announced users. An edit
+ * adds entries for the new names and leaves the old ones to be skipped, since only the latest
+ * names of each user match; a periodic rebuild drops them. Until the first build completes,
+ * searches match usernames in the database.
+ */
+@Slf4j
+@Service
+public class UserSearchService {
+
+  public static final String USER_SEARCH = "userSearch";
+
+  private static final UUID FIRST_PAGE = new UUID(0L, 0L);
+
+  /**
+   * An indexed user. Entries of a user are live while the user's latest record is this instance.
+   */
+  public record IndexedUser(UUID id, String username, String firstname, String lastname) {
+  }
+
+  private record State(PrefixIndex<IndexedUser> index, Map<UUID, IndexedUser> latest) {
+  }
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private CacheInvalidationBus invalidationBus;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${user.search.scan-page-size:10000}")
+  private int scanPageSize;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final List<Consumer<State>> changedDuringRebuild = new ArrayList<>();
+  private final List<List<Consumer<State>>> changedDuringReload = new ArrayList<>();
+  private volatile State state;
+  private boolean rebuilding;
+
+  @PostConstruct
+  void init() {
+    invalidationBus.subscribe(USER_SEARCH, new CacheInvalidationListener() {
+      @Override
+      public void evict(Set<String> userIds) {
+        reload(userIds.stream().map(UUID::fromString).toList());
+      }
+
+      @Override
+      public void clear() {
+        CompletableFuture.runAsync(UserSearchService.this::rebuild);
+      }
+    });
+    Gauge.builder("user.search.index.entries", this, s -> s.state == null ? 0 : s.state.index().size())
+        .description("Entries of the user search index, stale ones included")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Find users whose username, first name, last name or full name starts with the prefix,
+   * ignoring case.
+   *
+   * @param prefix the prefix, not blank
+   * @param limit  the number of users to return at most
+   * @return the users, ordered by the matching name
+   */
+  public List<IndexedUser> search(String prefix, int limit) {
+    String key = normalize(prefix);
+    State current = state;
+    if (current == null) {
+      return userRepository.findByUsernamePattern(escapeLike(key) + "%", limit).stream()
+          .map(UserSearchService::toIndexed)
+          .toList();
+    }
+    return current.index().search(key, limit, user -> current.latest().get(user.id()) == user);
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserNamesChanged(UserNamesChangedEvent event) {
+    IndexedUser user = new IndexedUser(event.userId(), event.username(), event.firstname(), event.lastname());
+    apply(current -> put(current, user));
+    invalidationBus.publish(USER_SEARCH, List.of(event.userId().toString()));
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onUserDeleted(UserDeletedEvent event) {
+    apply(current -> current.latest().remove(event.userId()));
+    invalidationBus.publish(USER_SEARCH, List.of(event.userId().toString()));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    rebuild();
+  }
+
+  /**
+   * Rebuild the index from a keyset scan of users, dropping stale entries. Changes committed
+   * while the scan runs are applied to both the old and the new index.
+   */
+  @Scheduled(fixedDelayString = "${user.search.rebuild-interval:PT1H}",
+      initialDelayString = "${user.search.rebuild-interval:PT1H}")
+  public void rebuild() {
+    lock.lock();
+    try {
+      if (rebuilding) {
+        return;
+      }
+      rebuilding = true;
+      changedDuringRebuild.clear();
+    } finally {
+      lock.unlock();
+    }
+
+    State next = null;
+    try {
+      long start = System.nanoTime();
+      State current = state;
+      int expectedUsers = current == null ? 1024 : current.latest().size();
+      PrefixIndex.Builder<IndexedUser> builder = new PrefixIndex.Builder<>(expectedUsers * 4);
+      Map<UUID, IndexedUser> latest = new ConcurrentHashMap<>(expectedUsers);
+      UUID after = FIRST_PAGE;
+      List<UserSummaryView> page;
+      do {
+        page = userRepository.findSummaryPage(after, scanPageSize);
+        for (UserSummaryView row : page) {
+          IndexedUser user = toIndexed(row);
+          latest.put(user.id(), user);
+          keys(user).forEach(key -> builder.add(key, user));
+          after = row.getId();
+        }
+      } while (page.size() == scanPageSize);
+      next = new State(builder.build(), latest);
+      log.info("Built user search index over {} users in {} ms",
+          latest.size(), (System.nanoTime() - start) / 1_000_000);
+    } catch (RuntimeException e) {
+      log.warn("Failed to rebuild the user search index, keeping the previous one", e);
+      next = null;
+    } finally {
+      lock.lock();
+      try {
+        if (next != null) {
+          State built = next;
+          changedDuringRebuild.forEach(change -> change.accept(built));
+          state = built;
+        }
+        changedDuringRebuild.clear();
+        rebuilding = false;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void apply(Consumer<State> change) {
+    lock.lock();
+    try {
+      if (state != null) {
+        change.accept(state);
+      }
+      if (rebuilding) {
+        changedDuringRebuild.add(change);
+      }
+      changedDuringReload.forEach(changes -> changes.add(change));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Re-read users that changed on another instance. Local changes applied while the users are
+   * read are applied again on top, so a read that predates them cannot undo them.
+   */
+  private void reload(List<UUID> userIds) {
+    List<Consumer<State>> changedMeanwhile = new ArrayList<>();
+    lock.lock();
+    try {
+      changedDuringReload.add(changedMeanwhile);
+    } finally {
+      lock.unlock();
+    }
+
+    List<Consumer<State>> replacements = new ArrayList<>();
+    try {
+      List<IndexedUser> found = userRepository.findProfilesByIdIn(userIds).stream()
+          .map(UserSearchService::toIndexed)
+          .toList();
+      Set<UUID> deleted = new HashSet<>(userIds);
+      found.forEach(user -> deleted.remove(user.id()));
+      replacements.add(current -> {
+        found.forEach(user -> put(current, user));
+        deleted.forEach(current.latest()::remove);
+      });
+    } finally {
+      lock.lock();
+      try {
+        changedDuringReload.removeIf(changes -> changes == changedMeanwhile);
+        replacements.forEach(this::apply);
+        changedMeanwhile.forEach(this::apply);
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static void put(State state, IndexedUser user) {
+    IndexedUser previous = state.latest().get(user.id());
+    if (user.equals(previous)) {
+      return;
+    }
+    keys(user).forEach(key -> state.index().add(key, user));
+    state.latest().put(user.id(), user);
+  }
+
+  private static Set<String> keys(IndexedUser user) {
+    Set<String> keys = new HashSet<>();
+    addKey(keys, user.username());
+    addKey(keys, user.firstname());
+    addKey(keys, user.lastname());
+    if (user.firstname() != null && user.lastname() != null) {
+      addKey(keys, user.firstname() + " " + user.lastname());
+    }
+    return keys;
+  }
+
+  private static void addKey(Set<String> keys, String name) {
+    if (name != null && !name.isBlank()) {
+      keys.add(normalize(name));
+    }
+  }
+
+  private static String normalize(String name) {
+    return name.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  private static IndexedUser toIndexed(UserSummaryView view) {
+    return new IndexedUser(view.getId(), view.getUsername(), view.getFirstname(), view.getLastname());
+  }
+}
@@ -1,30 +1,94 @@
 package com.pubfinder.pubfinder.service;
 
+import com.pubfinder.pubfinder.cache.CachedUser;
+import com.pubfinder.pubfinder.cache.UserCacheInvalidator;
+import com.pubfinder.pubfinder.db.CredentialsView;
+import com.pubfinder.pubfinder.db.FollowBatchRepository;
+import com.pubfinder.pubfinder.db.FollowCountsView;
+import com.pubfinder.pubfinder.db.FollowEdgeView;
 import com.pubfinder.pubfinder.db.TokenRepository;
+import com.pubfinder.pubfinder.db.UserProfileView;
 import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.db.UserSummaryView;
+import com.pubfinder.pubfinder.dto.AvailabilityDto;
+import com.pubfinder.pubfinder.dto.FollowCountsDto;
 import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.dto.FollowResultDto;
+import com.pubfinder.pubfinder.dto.RelationshipDto;
+import com.pubfinder.pubfinder.dto.RelationshipsDto;
+import com.pubfinder.pubfinder.dto.SuggestionDto;
 import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.UserLookupDto;
+import com.pubfinder.pubfinder.dto.UserPageDto;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.dto.UserSummaryDto;
+import com.pubfinder.pubfinder.dto.UserVersionDto;
+import com.pubfinder.pubfinder.event.FollowsChangedEvent;
+import com.pubfinder.pubfinder.event.TokensRevokedEvent;
+import com.pubfinder.pubfinder.event.UserDeletedEvent;
+import com.pubfinder.pubfinder.event.UserNamesChangedEvent;
+import com.pubfinder.pubfinder.event.UsersChangedEvent;
 import com.pubfinder.pubfinder.exception.BadRequestException;
 import com.pubfinder.pubfinder.exception.ResourceNotFoundException;
 import com.pubfinder.pubfinder.mapper.Mapper;
-import com.pubfinder.pubfinder.models.Token;
 import com.pubfinder.pubfinder.models.User;
+import com.pubfinder.pubfinder.models.enums.FollowStatus;
 import com.pubfinder.pubfinder.models.enums.Role;
+import com.pubfinder.pubfinder.models.enums.UserExpansion;
+import com.pubfinder.pubfinder.util.FollowGraph;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 
 /**
- * The type User service.
+ * The type User service. Every public method is timed as {@code user.service}, tagged with the
+ * method name.
  */
 @Service
+@Timed(value = "user.service", histogram = true)
 public class UserService {
 
+  private static final int MAX_PAGE_SIZE = 200;
+
+  private static final int MAX_BATCH_SIZE = 1000;
+
+  private static final int MAX_SEARCH_RESULTS = 50;
+
+  /** Sorts before every other uuid, so a seek from it starts at the first row. */
+  private static final UUID FIRST_PAGE = new UUID(0L, 0L);
+
+  /** SQLState of a unique or primary key violation, the same on Postgres and H2. */
+  private static final String UNIQUE_VIOLATION = "23505";
+
+  /** Rows affected by a single follow write whose users no longer both exist. */
+  private static final int USER_MISSING = -1;
+
   @Autowired
   private UserRepository userRepository;
 
@@ -32,7 +96,37 @@ public class UserService {
   private TokenRepository tokenRepository;
 
   @Autowired
-  private PasswordEncoder passwordEncoder;
+  private PasswordHashingService passwordHashingService;
+
+  @Autowired
+  private AvailabilityService availabilityService;
+
+  @Autowired
+  private TokenValidationService tokenValidationService;
+
+  @Autowired
+  private FollowBatchRepository followBatchRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  @Autowired
+  private UserCacheInvalidator userCacheInvalidator;
+
+  @Autowired
+  private FollowGraphService followGraphService;
+
+  @Autowired
+  private SuggestionService suggestionService;
+
+  @Autowired
+  private UserSearchService userSearchService;
 
   /**
    * Register user authentication response.
@@ -41,19 +135,75 @@ public class UserService {
    * @throws BadRequestException user with the same email or/and username already exists
    */
   public UUID registerUser(User user) throws BadRequestException {
-    if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-      throw new BadRequestException("An account with the email address '" + user.getEmail() + "' already exists. Please use a different email.");
+    // Fast path that also spares the hash for taken credentials; the unique constraints decide races
+    BadRequestException taken = credentialsTaken(user);
+    if (taken != null) {
+      throw taken;
     }
 
-    if (userRepository.findByUsername(user.getUsername()).isPresent()) {
-      throw new BadRequestException("The username '" + user.getUsername() + "' is already taken. Please choose a different username.");
+    user.setRole(Role.ADMIN);
+    user.setPassword(passwordHashingService.encode(user.getPassword()));
+
+    UUID id;
+    try {
+      id = userRepository.saveAndFlush(user).getId();
+    } catch (DataIntegrityViolationException e) {
+      taken = credentialsTaken(user);
+      throw taken != null ? taken : e;
     }
+    availabilityService.taken(user.getUsername(), user.getEmail());
+    eventPublisher.publishEvent(
+        new UserNamesChangedEvent(id, user.getUsername(), user.getFirstname(), user.getLastname()));
+    return id;
+  }
 
-    user.setRole(Role.ADMIN);
-    user.setPassword(passwordEncoder.encode(user.getPassword()));
+  /**
+   * Check whether a username and/or an email are still free.
+   *
+   * @param username the username, or null to skip
+   * @param email    the email, or null to skip
+   * @return the availability
+   * @throws BadRequestException neither value was given
+   */
+  public AvailabilityDto checkAvailability(String username, String email) throws BadRequestException {
+    if (username == null && email == null) {
+      throw new BadRequestException("A username or an email is required.");
+    }
+    return availabilityService.check(username, email);
+  }
 
-    User savedUser = userRepository.save(user);
-    return savedUser.getId();
+  /**
+   * Find users whose username or display name starts with a prefix, ignoring case.
+   *
+   * @param prefix the prefix
+   * @param limit  the maximum number of users
+   * @return the users, ordered by the matching name
+   * @throws BadRequestException the prefix is blank or the limit is not positive
+   */
+  public List<UserSummaryDto> searchUsers(String prefix, int limit) throws BadRequestException {
+    if (prefix == null || prefix.isBlank()) {
+      throw new BadRequestException("A prefix is required.");
+    }
+    if (limit < 1) {
+      throw new BadRequestException("The limit must be a positive number.");
+    }
+    return userSearchService.search(prefix, Math.min(limit, MAX_SEARCH_RESULTS)).stream()
+        .map(user -> new UserSummaryDto(user.id(), user.username(), user.firstname(), user.lastname()))
+        .toList();
+  }
+
+  private BadRequestException credentialsTaken(User user) {
+    List<CredentialsView> existing =
+        userRepository.findCredentialsByEmailOrUsername(user.getEmail(), user.getUsername());
+    for (CredentialsView credentials : existing) {
+      if (credentials.getEmail().equals(user.getEmail())) {
+        return new BadRequestException("An account with the email address '" + user.getEmail() + "' already exists. Please use a different email.");
+      }
+    }
+    if (!existing.isEmpty()) {
+      return new BadRequestException("The username '" + user.getUsername() + "' is already taken. Please choose a different username.");
+    }
+    return null;
   }
 
   /**
@@ -62,16 +212,24 @@ public class UserService {
    * @param user    the user
    * @throws ResourceNotFoundException the resource not found exception
    */
+  @Transactional
   public void delete(User user) throws ResourceNotFoundException {
     // isRequestAllowed(user, request);
-    User foundUser = userRepository.findById(user.getId()).orElseThrow(
-        () -> new ResourceNotFoundException("User with id: " + user.getId() + " was not found"));
+    UUID id = user.getId();
+    if (id == null || !userRepository.existsById(id)) {
+      throw new ResourceNotFoundException("User with id: " + id + " was not found");
+    }
 
-    deleteAllUserTokens(foundUser);
+    deleteAllUserTokens(id);
+    publishUsersChanged(id, userRepository.findNeighbourIds(id));
+    userRepository.decrementFollowerCountsOfFollowing(id);
+    userRepository.decrementFollowingCountsOfFollowers(id);
+    userRepository.deleteAllFollowEdges(id);
     // TODO: delete all user activity see below
     // deleteAllUserVisits(foundUser);
     // deleteAllUserReviews(foundUser);
-    userRepository.delete(foundUser);
+    userRepository.deleteDirectlyById(id);
+    eventPublisher.publishEvent(new UserDeletedEvent(id));
   }
 
   /**
@@ -88,69 +246,626 @@ public class UserService {
       throw new BadRequestException();
     }
 
-    User foundUser = userRepository.findById(user.getId()).orElseThrow(
-        () -> new ResourceNotFoundException(
-            "User with the id: " + user.getId() + " was not found"));
+    // Hashed before the transaction begins, so no pooled connection waits on the hashing queue
+    String password = passwordHashingService.encode(user.getPassword());
 
-    user.setPassword(passwordEncoder.encode(user.getPassword()));
+    UserDto edited = transactionTemplate.execute(status -> writeEdit(user, password));
+    if (edited == null) {
+      throw new ResourceNotFoundException("User with the id: " + user.getId() + " was not found");
+    }
+    return edited;
+  }
+
+  /**
+   * @return the edited user, or {@code null} if it does not exist
+   */
+  private UserDto writeEdit(User user, String password) {
+    // Only the scalar columns are loaded and written; the follow collections stay untouched
+    User foundUser = userRepository.findById(user.getId()).orElse(null);
+    if (foundUser == null) {
+      return null;
+    }
 
-    deleteAllUserTokens(foundUser);
-    User editedUser = userRepository.save(user);
-    return Mapper.INSTANCE.entityToDto(editedUser);
+    deleteAllUserTokens(foundUser.getId());
+    boolean renamed = !Objects.equals(foundUser.getUsername(), user.getUsername())
+        || !Objects.equals(foundUser.getFirstname(), user.getFirstname())
+        || !Objects.equals(foundUser.getLastname(), user.getLastname());
+    foundUser.setUsername(user.getUsername());
+    foundUser.setFirstname(user.getFirstname());
+    foundUser.setLastname(user.getLastname());
+    foundUser.setEmail(user.getEmail());
+    foundUser.setPassword(password);
+    availabilityService.taken(foundUser.getUsername(), foundUser.getEmail());
+    eventPublisher.publishEvent(new UserNamesChangedEvent(foundUser.getId(), foundUser.getUsername(),
+        foundUser.getFirstname(), foundUser.getLastname()));
+    // Neighbours embed this user in their cached follower/following lists
+    List<UUID> neighbours = userRepository.findNeighbourIds(foundUser.getId());
+    Set<UUID> touched = new HashSet<>(renamed ? neighbours : List.of());
+    touched.add(foundUser.getId());
+    userRepository.touch(touched);
+    publishUsersChanged(foundUser.getId(), neighbours);
+    return Mapper.INSTANCE.entityToAccountDto(foundUser);
   }
 
   /**
    * Revoke user access.
    *
    * @param id the user id
+   * @return the number of tokens revoked
    */
-  public void revokeUserAccess(UUID id) throws ResourceNotFoundException {
-    User user = userRepository.findById(id).orElseThrow(
-            () -> new ResourceNotFoundException("User with id: " + id + " was not found")
-    );
-    deleteAllUserTokens(user);
+  public int revokeUserAccess(UUID id) throws ResourceNotFoundException {
+    if (!userRepository.existsById(id)) {
+      throw new ResourceNotFoundException("User with id: " + id + " was not found");
+    }
+    return deleteAllUserTokens(id);
   }
 
   /**
-   * Gets user.
+   * Gets the version of a user's profile and relationship pages, from the cache when possible.
+   * It changes whenever any of them would render differently.
+   *
+   * @param id the users id
+   * @return the version
+   * @throws ResourceNotFoundException the user not found exception
+   */
+  public UserVersionDto getUserVersion(UUID id) throws ResourceNotFoundException {
+    CachedUser cached = getCachedUser(id);
+    return new UserVersionDto(cached.version(), cached.updatedAtMillis());
+  }
+
+  /**
+   * Gets the profile of a user without its relationships.
    *
    * @param id the users id
    * @return the user
    * @throws ResourceNotFoundException the user not found exception
    */
-  @Cacheable(value = "getUser")
-  public UserDto getUser(UUID id) throws ResourceNotFoundException {
-    User user = userRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("User with id: " + id + " was not found"));
-    return Mapper.INSTANCE.entityToDto(user);
+  public UserProfileDto getUser(UUID id) throws ResourceNotFoundException {
+    return Mapper.INSTANCE.cachedUserToProfileDto(getCachedUser(id));
+  }
+
+  /**
+   * Gets user with the requested relationships included. The neighbour ids are cached with the
+   * user and resolved to summaries on every read, from the cache where possible.
+   *
+   * @param id     the users id
+   * @param expand the relationships to include
+   * @return the user
+   * @throws ResourceNotFoundException the user not found exception
+   */
+  public UserProfileDto getUser(UUID id, Set<UserExpansion> expand) throws ResourceNotFoundException {
+    long loadedAt = userCacheInvalidator.loadStarted();
+    CachedUser cached = getCachedUser(id);
+    CachedUser expanded = cached;
+    if (expand.contains(UserExpansion.FOLLOWING) && !expanded.hasFollowing()) {
+      expanded = expanded.withFollowing(userRepository.findFollowingIds(id));
+    }
+    if (expand.contains(UserExpansion.FOLLOWERS) && !expanded.hasFollowers()) {
+      expanded = expanded.withFollowers(userRepository.findFollowerIds(id));
+    }
+    if (expanded != cached) {
+      userCacheInvalidator.put(id, expanded, loadedAt);
+    }
+
+    UserProfileDto profile = Mapper.INSTANCE.cachedUserToProfileDto(expanded);
+    if (expand.contains(UserExpansion.FOLLOWING)) {
+      profile.setFollowing(resolveSummaries(expanded.following()));
+    }
+    if (expand.contains(UserExpansion.FOLLOWERS)) {
+      profile.setFollowers(resolveSummaries(expanded.followers()));
+    }
+    return profile;
+  }
+
+  private CachedUser getCachedUser(UUID id) throws ResourceNotFoundException {
+    CachedUser cached = userCache().get(id, CachedUser.class);
+    if (cached != null) {
+      return cached;
+    }
+    long loadedAt = userCacheInvalidator.loadStarted();
+    UserProfileView profile = userRepository.findProfileById(id)
+        .orElseThrow(() -> new ResourceNotFoundException("User with id: " + id + " was not found"));
+    cached = Mapper.INSTANCE.viewToCachedUser(profile);
+    userCacheInvalidator.put(id, cached, loadedAt);
+    return cached;
+  }
+
+  /**
+   * Gets several users at once, in the order of the ids. Cached users are read in one bulk
+   * lookup and the rest are loaded with one query per 1000 ids and cached together.
+   *
+   * @param ids the users ids, at most 1000
+   * @return one entry per id, marked as not found for unknown ids
+   */
+  public List<UserLookupDto> getUsers(List<UUID> ids) {
+    if (ids == null || ids.contains(null)) {
+      throw new BadRequestException("The ids must be a list of user ids.");
+    }
+    if (ids.size() > MAX_BATCH_SIZE) {
+      throw new BadRequestException("A lookup may contain at most " + MAX_BATCH_SIZE + " ids.");
+    }
+    Map<UUID, CachedUser> found = getCachedUsers(ids);
+    List<UserLookupDto> users = new ArrayList<>(ids.size());
+    for (UUID id : ids) {
+      CachedUser cached = found.get(id);
+      users.add(cached != null
+          ? new UserLookupDto(id, true, Mapper.INSTANCE.cachedUserToProfileDto(cached))
+          : new UserLookupDto(id, false, null));
+    }
+    return users;
   }
 
-  private void deleteAllUserTokens(User user) {
-    List<Token> tokens = tokenRepository.findAllTokensByUser(user.getId());
-    tokens.forEach((token -> tokenRepository.delete(token)));
+  /**
+   * Resolves user ids to summaries in the given order. Users deleted in the meantime are left out.
+   */
+  private List<UserSummaryDto> resolveSummaries(List<UUID> ids) {
+    Map<UUID, CachedUser> resolved = getCachedUsers(ids);
+    List<UserSummaryDto> summaries = new ArrayList<>(ids.size());
+    for (UUID id : ids) {
+      CachedUser cached = resolved.get(id);
+      if (cached != null) {
+        summaries.add(Mapper.INSTANCE.cachedUserToSummaryDto(cached));
+      }
+    }
+    return summaries;
   }
 
-  public UserDto follow(FollowDto followDto) throws ResourceNotFoundException {
-    User user = userRepository.findById(followDto.getUserId()).orElseThrow(() -> new ResourceNotFoundException("User with id: " + followDto.getUserId() + " was not found"));
-    User userToFollow = userRepository.findById(followDto.getFollowId()).orElseThrow(() -> new ResourceNotFoundException("User with id: " + followDto.getUserId() + " was not found"));
-    user.addFollowing(userToFollow);
+  /**
+   * Looks the ids up in the cache in one bulk read, loads the misses with one query per batch
+   * and caches those not evicted while they were loaded. Unknown ids are absent from the result.
+   */
+  private Map<UUID, CachedUser> getCachedUsers(Collection<UUID> ids) {
+    Cache cache = userCache();
+    Map<UUID, CachedUser> resolved = new HashMap<>();
+    if (cache instanceof CaffeineCache caffeine) {
+      caffeine.getNativeCache().getAllPresent(ids)
+          .forEach((id, cached) -> resolved.put((UUID) id, (CachedUser) cached));
+    } else {
+      for (UUID id : ids) {
+        CachedUser cached = cache.get(id, CachedUser.class);
+        if (cached != null) {
+          resolved.put(id, cached);
+        }
+      }
+    }
 
-    userRepository.save(userToFollow);
-    return Mapper.INSTANCE.entityToDto(userRepository.save(user));
+    List<UUID> missing = ids.stream().distinct().filter(id -> !resolved.containsKey(id)).toList();
+    long loadedAt = userCacheInvalidator.loadStarted();
+    Map<UUID, CachedUser> loaded = new HashMap<>();
+    for (int from = 0; from < missing.size(); from += MAX_BATCH_SIZE) {
+      List<UUID> batch = missing.subList(from, Math.min(missing.size(), from + MAX_BATCH_SIZE));
+      for (UserProfileView view : userRepository.findProfilesByIdIn(batch)) {
+        loaded.put(view.getId(), Mapper.INSTANCE.viewToCachedUser(view));
+      }
+    }
+    loaded.forEach((id, cached) -> userCacheInvalidator.put(id, cached, loadedAt));
+    resolved.putAll(loaded);
+    return resolved;
+  }
+
+  private Cache userCache() {
+    return cacheManager.getCache(UserCacheInvalidator.GET_USER);
   }
 
-  // TODO: add a cache maybe
-  public List<UserDto> getFollowers(UUID id) throws ResourceNotFoundException {
-    User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User with id: " + id + " was not found"));
-    return user.getFollowers().stream().map(Mapper.INSTANCE::entityToDto).toList();
+  private int deleteAllUserTokens(UUID userId) {
+    int deleted = tokenRepository.deleteAllByUserId(userId);
+    eventPublisher.publishEvent(new TokensRevokedEvent(userId));
+    return deleted;
+  }
+
+  /**
+   * Validate an access token.
+   *
+   * @param token the token
+   * @return the id of the user the token belongs to
+   * @throws BadCredentialsException the token is unknown, revoked or expired
+   */
+  public UUID validateToken(String token) throws BadCredentialsException {
+    if (token == null || token.isEmpty()) {
+      throw new BadCredentialsException("Missing token");
+    }
+    return tokenValidationService.validate(token)
+        .orElseThrow(() -> new BadCredentialsException("Invalid token"));
   }
 
-  public void unfollow(FollowDto followDto) throws ResourceNotFoundException {
-    User user = userRepository.findById(followDto.getUserId()).orElseThrow(() -> new ResourceNotFoundException("User with id: " + followDto.getUserId() + " was not found"));
-    User userToUnfollow = userRepository.findById(followDto.getFollowId()).orElseThrow(() -> new ResourceNotFoundException("User with id: " + followDto.getUserId() + " was not found"));
-    user.removeFollowing(userToUnfollow);
+  /**
+   * Follow a user. Only the join row and the counters are written, so the cost does not depend
+   * on how many followers either user has.
+   *
+   * @param followDto the follower and the user to follow
+   * @return the resulting follow status
+   * @throws ResourceNotFoundException one of the users was not found
+   */
+  public FollowResultDto follow(FollowDto followDto) throws ResourceNotFoundException {
+    requireFollowPair(followDto);
+    UUID userId = followDto.getUserId();
+    UUID followId = followDto.getFollowId();
 
-    userRepository.save(user);
-    userRepository.save(userToUnfollow);
+    boolean followed;
+    try {
+      followed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+        if (userRepository.insertFollowing(userId, followId) == 0) {
+          return false;
+        }
+        userRepository.adjustFollowCounts(userId, followId, 1);
+        publishUsersChanged(userId, List.of(followId));
+        eventPublisher.publishEvent(new FollowsChangedEvent(List.of(followDto), true));
+        return true;
+      }));
+    } catch (DataIntegrityViolationException e) {
+      if (!isUniqueViolation(e)) {
+        // One of the users was deleted after the existence check
+        requireFollowPair(followDto);
+        throw e;
+      }
+      // A concurrent request inserted the same edge between the existence check and the insert
+      followed = false;
+    }
+    return new FollowResultDto(userId, followId, followed ? FollowStatus.FOLLOWED : FollowStatus.ALREADY_FOLLOWING);
+  }
+
+  /**
+   * Unfollow a user.
+   *
+   * @param followDto the follower and the user to unfollow
+   * @return the resulting follow status
+   * @throws ResourceNotFoundException one of the users was not found
+   */
+  public FollowResultDto unfollow(FollowDto followDto) throws ResourceNotFoundException {
+    requireFollowPair(followDto);
+    UUID userId = followDto.getUserId();
+    UUID followId = followDto.getFollowId();
+
+    boolean unfollowed = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+      if (userRepository.deleteFollowing(userId, followId) == 0) {
+        return false;
+      }
+      userRepository.adjustFollowCounts(userId, followId, -1);
+      publishUsersChanged(userId, List.of(followId));
+      eventPublisher.publishEvent(new FollowsChangedEvent(List.of(followDto), false));
+      return true;
+    }));
+    return new FollowResultDto(userId, followId, unfollowed ? FollowStatus.UNFOLLOWED : FollowStatus.NOT_FOLLOWING);
+  }
+
+  /**
+   * Follow many users at once. All ids are validated with one query and the edges are written
+   * as a single JDBC batch.
+   *
+   * @param pairs the follower and followed user pairs
+   * @return the result of every pair, in request order
+   */
+  public List<FollowResultDto> followBatch(List<FollowDto> pairs) {
+    return applyBatch(pairs, true);
+  }
+
+  /**
+   * Unfollow many users at once.
+   *
+   * @param pairs the follower and followed user pairs
+   * @return the result of every pair, in request order
+   */
+  public List<FollowResultDto> unfollowBatch(List<FollowDto> pairs) {
+    return applyBatch(pairs, false);
+  }
+
+  private List<FollowResultDto> applyBatch(List<FollowDto> pairs, boolean follow) {
+    if (pairs == null || pairs.isEmpty()) {
+      throw new BadRequestException("At least one pair is required.");
+    }
+    if (pairs.size() > MAX_BATCH_SIZE) {
+      throw new BadRequestException("A batch may contain at most " + MAX_BATCH_SIZE + " pairs.");
+    }
+
+    Set<UUID> ids = new HashSet<>();
+    for (FollowDto pair : pairs) {
+      if (pair != null) {
+        if (pair.getUserId() != null) {
+          ids.add(pair.getUserId());
+        }
+        if (pair.getFollowId() != null) {
+          ids.add(pair.getFollowId());
+        }
+      }
+    }
+    Set<UUID> existing = ids.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingIds(ids));
+
+    FollowStatus unchanged = follow ? FollowStatus.ALREADY_FOLLOWING : FollowStatus.NOT_FOLLOWING;
+    FollowResultDto[] results = new FollowResultDto[pairs.size()];
+    List<FollowDto> writes = new ArrayList<>();
+    List<Integer> writeIndexes = new ArrayList<>();
+    Set<FollowDto> seen = new HashSet<>();
+    for (int i = 0; i < pairs.size(); i++) {
+      FollowDto pair = pairs.get(i);
+      if (pair == null || pair.getUserId() == null || pair.getFollowId() == null
+          || pair.getUserId().equals(pair.getFollowId())) {
+        results[i] = new FollowResultDto(pair == null ? null : pair.getUserId(),
+            pair == null ? null : pair.getFollowId(), FollowStatus.INVALID);
+      } else if (!existing.contains(pair.getUserId()) || !existing.contains(pair.getFollowId())) {
+        results[i] = new FollowResultDto(pair.getUserId(), pair.getFollowId(), FollowStatus.NOT_FOUND);
+      } else if (!seen.add(pair)) {
+        results[i] = new FollowResultDto(pair.getUserId(), pair.getFollowId(), unchanged);
+      } else {
+        writes.add(pair);
+        writeIndexes.add(i);
+      }
+    }
+
+    if (!writes.isEmpty()) {
+      int[] affected;
+      try {
+        affected = transactionTemplate.execute(status -> writeBatch(writes, follow));
+      } catch (DataIntegrityViolationException e) {
+        // A concurrent follow of one of the pairs won the race, or one of the users was deleted;
+        // settle the pairs one at a time
+        affected = new int[writes.size()];
+        for (int i = 0; i < writes.size(); i++) {
+          affected[i] = writeSingle(writes.get(i), follow);
+        }
+      }
+      FollowStatus changed = follow ? FollowStatus.FOLLOWED : FollowStatus.UNFOLLOWED;
+      for (int i = 0; i < writes.size(); i++) {
+        FollowDto pair = writes.get(i);
+        FollowStatus status = affected[i] == USER_MISSING ? FollowStatus.NOT_FOUND
+            : affected[i] > 0 ? changed : unchanged;
+        results[writeIndexes.get(i)] = new FollowResultDto(pair.getUserId(), pair.getFollowId(), status);
+      }
+    }
+    return Arrays.asList(results);
+  }
+
+  private int[] writeBatch(List<FollowDto> writes, boolean follow) {
+    int[] affected = follow
+        ? followBatchRepository.insertFollowing(writes)
+        : followBatchRepository.deleteFollowing(writes);
+    int delta = follow ? 1 : -1;
+    // Sorted so concurrent batches lock the user rows in the same order
+    Map<UUID, int[]> deltas = new TreeMap<>();
+    List<FollowDto> changed = new ArrayList<>();
+    for (int i = 0; i < writes.size(); i++) {
+      if (affected[i] > 0) {
+        deltas.computeIfAbsent(writes.get(i).getUserId(), id -> new int[2])[0] += delta;
+        deltas.computeIfAbsent(writes.get(i).getFollowId(), id -> new int[2])[1] += delta;
+        changed.add(writes.get(i));
+      }
+    }
+    if (!deltas.isEmpty()) {
+      followBatchRepository.adjustFollowCounts(deltas);
+      eventPublisher.publishEvent(new UsersChangedEvent(deltas.keySet()));
+      eventPublisher.publishEvent(new FollowsChangedEvent(changed, follow));
+    }
+    return affected;
+  }
+
+  private int writeSingle(FollowDto pair, boolean follow) {
+    try {
+      Integer affected = transactionTemplate.execute(status -> {
+        int rows = follow
+            ? userRepository.insertFollowing(pair.getUserId(), pair.getFollowId())
+            : userRepository.deleteFollowing(pair.getUserId(), pair.getFollowId());
+        if (rows > 0) {
+          userRepository.adjustFollowCounts(pair.getUserId(), pair.getFollowId(), follow ? 1 : -1);
+          publishUsersChanged(pair.getUserId(), List.of(pair.getFollowId()));
+          eventPublisher.publishEvent(new FollowsChangedEvent(List.of(pair), follow));
+        }
+        return rows;
+      });
+      return affected == null ? 0 : affected;
+    } catch (DataIntegrityViolationException e) {
+      if (isUniqueViolation(e)) {
+        return 0;
+      }
+      if (userRepository.findExistingIds(List.of(pair.getUserId(), pair.getFollowId())).size() < 2) {
+        return USER_MISSING;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Whether the write lost a race for the same edge, as opposed to e.g. a foreign key violation
+   * because one of the users was deleted concurrently.
+   */
+  private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void requireFollowPair(FollowDto followDto) throws ResourceNotFoundException {
+    if (followDto == null || followDto.getUserId() == null || followDto.getFollowId() == null) {
+      throw new BadRequestException("Both userId and followId are required.");
+    }
+    if (followDto.getUserId().equals(followDto.getFollowId())) {
+      throw new BadRequestException("A user cannot follow themselves.");
+    }
+    List<UUID> existing = userRepository.findExistingIds(List.of(followDto.getUserId(), followDto.getFollowId()));
+    for (UUID id : List.of(followDto.getUserId(), followDto.getFollowId())) {
+      if (!existing.contains(id)) {
+        throw new ResourceNotFoundException("User with id: " + id + " was not found");
+      }
+    }
+  }
+
+  /**
+   * Gets whether a user follows another user and whether it is followed back, from the in-memory
+   * follow graph once it is loaded and with one query before that. Unknown ids are reported as
+   * neither following nor followed.
+   *
+   * @param id      the users id
+   * @param otherId the other users id
+   * @return the relationship
+   */
+  public RelationshipDto getRelationship(UUID id, UUID otherId) {
+    Optional<FollowGraph> graph = followGraphService.graph();
+    if (graph.isPresent()) {
+      return new RelationshipDto(id, otherId, graph.get().follows(id, otherId), graph.get().follows(otherId, id));
+    }
+    List<UUID> followers = userRepository.findFollowEdgesBetween(id, otherId);
+    return new RelationshipDto(id, otherId, followers.contains(id), !id.equals(otherId) && followers.contains(otherId));
+  }
+
+  /**
+   * Gets whether a user follows each of the targets and whether each follows it back, as
+   * bitmaps in the order of the targets. Answered from the in-memory follow graph once it is
+   * loaded and with one query before that; unknown ids are neither following nor followed.
+   *
+   * @param id        the users id
+   * @param targetIds the targets, at most 1000
+   * @return the bitmaps
+   */
+  public RelationshipsDto getRelationships(UUID id, List<UUID> targetIds) {
+    if (targetIds == null || targetIds.contains(null)) {
+      throw new BadRequestException("The targets must be a list of user ids.");
+    }
+    if (targetIds.size() > MAX_BATCH_SIZE) {
+      throw new BadRequestException("A batch may contain at most " + MAX_BATCH_SIZE + " targets.");
+    }
+    BitSet following = new BitSet(targetIds.size());
+    BitSet followedBy = new BitSet(targetIds.size());
+    Optional<FollowGraph> graph = followGraphService.graph();
+    if (graph.isPresent()) {
+      int user = graph.get().node(id);
+      for (int i = 0; i < targetIds.size(); i++) {
+        int target = graph.get().node(targetIds.get(i));
+        following.set(i, graph.get().follows(user, target));
+        followedBy.set(i, graph.get().follows(target, user));
+      }
+    } else if (!targetIds.isEmpty()) {
+      Set<UUID> followed = new HashSet<>();
+      Set<UUID> followers = new HashSet<>();
+      for (FollowEdgeView edge : userRepository.findFollowEdgesWith(id, new HashSet<>(targetIds))) {
+        if (edge.getUserId().equals(id)) {
+          followed.add(edge.getFollowingId());
+        }
+        if (edge.getFollowingId().equals(id)) {
+          followers.add(edge.getUserId());
+        }
+      }
+      for (int i = 0; i < targetIds.size(); i++) {
+        following.set(i, followed.contains(targetIds.get(i)));
+        followedBy.set(i, followers.contains(targetIds.get(i)));
+      }
+    }
+    return new RelationshipsDto(id, targetIds.size(),
+        Base64.getEncoder().encodeToString(following.toByteArray()),
+        Base64.getEncoder().encodeToString(followedBy.toByteArray()));
+  }
+
+  /**
+   * Gets users to follow: the ones followed by the users a user follows, ranked by how many of
+   * them follow each. Unknown ids and users without follows get no suggestions.
+   *
+   * @param id    the users id
+   * @param limit the maximum number of suggestions
+   * @return the suggestions, best first
+   */
+  public List<SuggestionDto> getSuggestions(UUID id, int limit) {
+    if (limit < 1) {
+      throw new BadRequestException("The limit must be a positive number.");
+    }
+    List<SuggestionService.Suggestion> suggestions =
+        suggestionService.suggest(id, Math.min(limit, SuggestionService.MAX_SUGGESTIONS));
+    Map<UUID, Integer> sharedFollowees = new HashMap<>();
+    suggestions.forEach(suggestion -> sharedFollowees.put(suggestion.id(), suggestion.sharedFollowees()));
+    return resolveSummaries(suggestions.stream().map(SuggestionService.Suggestion::id).toList()).stream()
+        .map(summary -> new SuggestionDto(summary, sharedFollowees.get(summary.getId())))
+        .toList();
+  }
+
+  /**
+   * Gets the follower and following counts of a user from its denormalized counters.
+   *
+   * @param id the users id
+   * @return the counts
+   * @throws ResourceNotFoundException the user not found exception
+   */
+  public FollowCountsDto getFollowCounts(UUID id) throws ResourceNotFoundException {
+    FollowCountsView counts = userRepository.findFollowCountsById(id)
+        .orElseThrow(() -> new ResourceNotFoundException("User with id: " + id + " was not found"));
+    return FollowCountsDto.builder()
+        .followers(counts.getFollowerCount())
+        .following(counts.getFollowingCount())
+        .build();
+  }
+
+  /**
+   * Gets a page of the users following the given user.
+   *
+   * @param id     the users id
+   * @param cursor the cursor returned with the previous page, or null for the first page
+   * @param limit  the maximum page size
+   * @return the page of followers
+   * @throws ResourceNotFoundException the user not found exception
+   */
+  public UserPageDto getFollowers(UUID id, String cursor, int limit) throws ResourceNotFoundException {
+    // Usually a cache hit, since the controller has just read the version
+    getCachedUser(id);
+    int pageSize = clampPageSize(limit);
+    return toPage(userRepository.findFollowersPage(id, decodeCursor(cursor), pageSize + 1), pageSize);
+  }
+
+  /**
+   * Gets a page of the users the given user follows.
+   *
+   * @param id     the users id
+   * @param cursor the cursor returned with the previous page, or null for the first page
+   * @param limit  the maximum page size
+   * @return the page of followed users
+   * @throws ResourceNotFoundException the user not found exception
+   */
+  public UserPageDto getFollowing(UUID id, String cursor, int limit) throws ResourceNotFoundException {
+    getCachedUser(id);
+    int pageSize = clampPageSize(limit);
+    return toPage(userRepository.findFollowingPage(id, decodeCursor(cursor), pageSize + 1), pageSize);
+  }
+
+  /**
+   * Listeners run after the surrounding transaction commits, see
+   * {@link com.pubfinder.pubfinder.cache.UserCacheInvalidator}.
+   */
+  private void publishUsersChanged(UUID id, Collection<UUID> others) {
+    Set<UUID> ids = new HashSet<>(others);
+    ids.add(id);
+    eventPublisher.publishEvent(new UsersChangedEvent(ids));
+  }
+
+  private static int clampPageSize(int limit) {
+    if (limit < 1) {
+      throw new BadRequestException("The limit must be a positive number.");
+    }
+    return Math.min(limit, MAX_PAGE_SIZE);
+  }
+
+  /**
+   * One row more than the page size is fetched so the presence of a next page is known
+   * without a count query.
+   */
+  private static UserPageDto toPage(List<UserSummaryView> rows, int pageSize) {
+    boolean hasNext = rows.size() > pageSize;
+    List<UserSummaryView> page = hasNext ? rows.subList(0, pageSize) : rows;
+    return UserPageDto.builder()
+        .users(page.stream().map(Mapper.INSTANCE::viewToSummaryDto).toList())
+        .nextCursor(hasNext ? encodeCursor(page.get(page.size() - 1).getId()) : null)
+        .build();
+  }
+
+  private static String encodeCursor(UUID lastId) {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(lastId.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static UUID decodeCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return FIRST_PAGE;
+    }
+    try {
+      return UUID.fromString(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Invalid cursor.");
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.pubfinder.pubfinder.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings. {@link #mightContain} never returns false for a value
+ * that was {@link #put}; it returns true for an absent value with roughly the configured
+ * false-positive probability.
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long numBits;
+  private final int numHashes;
+
+  private BloomFilter(long numBits, int numHashes) {
+    this.words = new AtomicLongArray((int) ((numBits + 63) / 64));
+    this.numBits = numBits;
+    this.numHashes = numHashes;
+  }
+
+  /**
+   * Create a filter sized for the expected number of values.
+   *
+   * @param expectedInsertions the expected number of values
+   * @param falsePositiveRate  the acceptable false-positive probability, between 0 and 1
+   * @return the filter
+   */
+  public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    bits = Math.max(64, Math.min(bits, (long) Integer.MAX_VALUE * 64));
+    int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    return new BloomFilter(bits, hashes);
+  }
+
+  public void put(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1);
+    for (int i = 0; i < numHashes; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, numBits);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = words.get(word);
+      } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long hash1 = hash(value);
+    long hash2 = mix(hash1);
+    for (int i = 0; i < numHashes; i++) {
+      long bit = Math.floorMod(hash1 + i * hash2, numBits);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** 64-bit FNV-1a over the UTF-16 code units. */
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(hash);
+  }
+
+  /** SplitMix64 finalizer, spreads the bits so the derived hashes are independent enough. */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,400 @@
+package com.pubfinder.pubfinder.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory follow graph. Users are interned to dense int ids by a {@link UuidIndex}, and both
+ * directions of every edge are kept as sorted int arrays per user, so an edge costs 8 bytes and a
+ * membership check is a binary search. Thread-safe: reads share a read lock, changes take the
+ * write lock.
+ */
+public class FollowGraph {
+
+  private static final int[] NO_EDGES = new int[0];
+  private static final Collection<UUID> NO_IDS = List.of();
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final UuidIndex index;
+  private int[][] following;
+  private int[] followingSize;
+  private int[][] followers;
+  private int[] followersSize;
+  private long edges;
+
+  public FollowGraph() {
+    this(1024);
+  }
+
+  public FollowGraph(int expectedUsers) {
+    int capacity = Math.max(16, expectedUsers);
+    index = new UuidIndex(capacity);
+    following = new int[capacity][];
+    followingSize = new int[capacity];
+    followers = new int[capacity][];
+    followersSize = new int[capacity];
+  }
+
+  /**
+   * Add the edge {@code userId -> followId}.
+   *
+   * @return false if it was already there
+   */
+  public boolean follow(UUID userId, UUID followId) {
+    lock.writeLock().lock();
+    try {
+      int user = internNode(userId);
+      int followed = internNode(followId);
+      return link(user, followed);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Remove the edge {@code userId -> followId}.
+   *
+   * @return false if it was not there
+   */
+  public boolean unfollow(UUID userId, UUID followId) {
+    lock.writeLock().lock();
+    try {
+      int user = index.get(userId);
+      int followed = index.get(followId);
+      return user >= 0 && followed >= 0 && unlink(user, followed);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replace all edges of a user with the given ones, e.g. after reading them back from the
+   * database.
+   */
+  public void replaceUser(UUID userId, Collection<UUID> followingIds, Collection<UUID> followerIds) {
+    lock.writeLock().lock();
+    try {
+      int user = internNode(userId);
+      while (followingSize[user] > 0) {
+        unlink(user, following[user][followingSize[user] - 1]);
+      }
+      while (followersSize[user] > 0) {
+        unlink(followers[user][followersSize[user] - 1], user);
+      }
+      for (UUID id : followingIds) {
+        link(user, internNode(id));
+      }
+      for (UUID id : followerIds) {
+        link(internNode(id), user);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void removeUser(UUID userId) {
+    replaceUser(userId, NO_IDS, NO_IDS);
+  }
+
+  public boolean follows(UUID userId, UUID followId) {
+    lock.readLock().lock();
+    try {
+      return isLinked(index.get(userId), index.get(followId));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Whether node {@code user} follows node {@code followed}; either may be -1 for "unknown".
+   */
+  public boolean follows(int user, int followed) {
+    lock.readLock().lock();
+    try {
+      return isLinked(user, followed);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int followingCount(UUID userId) {
+    lock.readLock().lock();
+    try {
+      int user = index.get(userId);
+      return user < 0 ? 0 : followingSize[user];
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int followerCount(UUID userId) {
+    lock.readLock().lock();
+    try {
+      int user = index.get(userId);
+      return user < 0 ? 0 : followersSize[user];
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the node of the user, or -1 if the user has never had an edge
+   */
+  public int node(UUID userId) {
+    lock.readLock().lock();
+    try {
+      return index.get(userId);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public UUID uuid(int node) {
+    lock.readLock().lock();
+    try {
+      return index.uuid(node);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return a sorted copy of the nodes {@code node} follows
+   */
+  public int[] following(int node) {
+    lock.readLock().lock();
+    try {
+      return node < 0 ? NO_EDGES : Arrays.copyOf(following[node], followingSize[node]);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Like {@link #following(int)}, but a node following more than {@code limit} others yields an
+   * evenly spaced sample of {@code limit} of them, still sorted.
+   */
+  public int[] following(int node, int limit) {
+    lock.readLock().lock();
+    try {
+      if (node < 0) {
+        return NO_EDGES;
+      }
+      int size = followingSize[node];
+      if (size <= limit) {
+        return Arrays.copyOf(following[node], size);
+      }
+      int[] sample = new int[limit];
+      for (int i = 0; i < limit; i++) {
+        sample[i] = following[node][(int) ((long) i * size / limit)];
+      }
+      return sample;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return a sorted copy of the nodes following {@code node}
+   */
+  public int[] followers(int node) {
+    lock.readLock().lock();
+    try {
+      return node < 0 ? NO_EDGES : Arrays.copyOf(followers[node], followersSize[node]);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int followingCount(int node) {
+    lock.readLock().lock();
+    try {
+      return node < 0 ? 0 : followingSize[node];
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int followerCount(int node) {
+    lock.readLock().lock();
+    try {
+      return node < 0 ? 0 : followersSize[node];
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int nodeCount() {
+    lock.readLock().lock();
+    try {
+      return index.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public long edgeCount() {
+    lock.readLock().lock();
+    try {
+      return edges;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Estimated heap footprint of the index and the adjacency arrays in bytes, assuming the lists
+   * carry the 50% growth headroom on average.
+   */
+  public long estimatedBytes() {
+    lock.readLock().lock();
+    try {
+      long perNode = 2L * (8 + 4 + 16);
+      return index.estimatedBytes() + perNode * following.length + 2L * 4 * edges * 5 / 4;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Bulk loader: edges are appended unsorted and every list is sorted once in {@link #build},
+   * instead of paying a sorted insert per edge.
+   */
+  public static class Builder {
+
+    private final FollowGraph graph;
+
+    public Builder(int expectedUsers) {
+      graph = new FollowGraph(expectedUsers);
+    }
+
+    public Builder add(UUID userId, UUID followId) {
+      graph.append(graph.internNode(userId), graph.internNode(followId));
+      return this;
+    }
+
+    public FollowGraph build() {
+      graph.sortAndDeduplicate();
+      return graph;
+    }
+  }
+
+  private int internNode(UUID id) {
+    return internNode(id.getMostSignificantBits(), id.getLeastSignificantBits());
+  }
+
+  private int internNode(long msb, long lsb) {
+    int node = index.intern(msb, lsb);
+    if (node == following.length) {
+      int capacity = node * 2;
+      following = Arrays.copyOf(following, capacity);
+      followingSize = Arrays.copyOf(followingSize, capacity);
+      followers = Arrays.copyOf(followers, capacity);
+      followersSize = Arrays.copyOf(followersSize, capacity);
+    }
+    if (following[node] == null) {
+      following[node] = NO_EDGES;
+      followers[node] = NO_EDGES;
+    }
+    return node;
+  }
+
+  private boolean isLinked(int user, int followed) {
+    if (user < 0 || followed < 0) {
+      return false;
+    }
+    // Search the shorter of the two lists
+    return followingSize[user] <= followersSize[followed]
+        ? Arrays.binarySearch(following[user], 0, followingSize[user], followed) >= 0
+        : Arrays.binarySearch(followers[followed], 0, followersSize[followed], user) >= 0;
+  }
+
+  private boolean link(int user, int followed) {
+    if (!insertSorted(following, followingSize, user, followed)) {
+      return false;
+    }
+    insertSorted(followers, followersSize, followed, user);
+    edges++;
+    return true;
+  }
+
+  private boolean unlink(int user, int followed) {
+    if (!removeSorted(following, followingSize, user, followed)) {
+      return false;
+    }
+    removeSorted(followers, followersSize, followed, user);
+    edges--;
+    return true;
+  }
+
+  private void append(int user, int followed) {
+    following[user] = appendTo(following[user], followingSize[user]++, followed);
+    followers[followed] = appendTo(followers[followed], followersSize[followed]++, user);
+  }
+
+  private void sortAndDeduplicate() {
+    edges = 0;
+    for (int node = 0; node < index.size(); node++) {
+      followingSize[node] = sortUnique(following[node], followingSize[node]);
+      followersSize[node] = sortUnique(followers[node], followersSize[node]);
+      edges += followingSize[node];
+    }
+  }
+
+  private static int[] appendTo(int[] list, int size, int value) {
+    if (size == list.length) {
+      list = Arrays.copyOf(list, Math.max(4, size + (size >> 1)));
+    }
+    list[size] = value;
+    return list;
+  }
+
+  private static boolean insertSorted(int[][] lists, int[] sizes, int node, int value) {
+    int size = sizes[node];
+    int position = Arrays.binarySearch(lists[node], 0, size, value);
+    if (position >= 0) {
+      return false;
+    }
+    position = -position - 1;
+    int[] list = lists[node];
+    if (size == list.length) {
+      list = Arrays.copyOf(list, Math.max(4, size + (size >> 1)));
+      lists[node] = list;
+    }
+    System.arraycopy(list, position, list, position + 1, size - position);
+    list[position] = value;
+    sizes[node] = size + 1;
+    return true;
+  }
+
+  private static boolean removeSorted(int[][] lists, int[] sizes, int node, int value) {
+    int size = sizes[node];
+    int position = Arrays.binarySearch(lists[node], 0, size, value);
+    if (position < 0) {
+      return false;
+    }
+    System.arraycopy(lists[node], position + 1, lists[node], position, size - position - 1);
+    sizes[node] = size - 1;
+    if (sizes[node] == 0) {
+      lists[node] = NO_EDGES;
+    }
+    return true;
+  }
+
+  private static int sortUnique(int[] list, int size) {
+    if (size < 2) {
+      return size;
+    }
+    Arrays.sort(list, 0, size);
+    int unique = 1;
+    for (int i = 1; i < size; i++) {
+      if (list[i] != list[unique - 1]) {
+        list[unique++] = list[i];
+      }
+    }
+    return unique;
+  }
+}
@@ -0,0 +1,135 @@
+package com.pubfinder.pubfinder.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ranks the second-degree connections of a user in a {@link FollowGraph} by the number of users
+ * they are followed by among the ones the user follows.
+ *
+ * <p>The followees are split across a fork/join pool; every leaf collects the followees' own
+ * followees into a sorted array and the halves are merged on the way up, so counting is one
+ * pass over runs of equal nodes. The work is bounded: a user following more than
+ * {@code maxFollowees} is ranked from an even sample of them, and each followee contributes at
+ * most {@code maxFanout} of its own followees.
+ */
+public final class FriendsOfFriends {
+
+  private static final int LEAF_SIZE = 32;
+
+  private static final Comparator<Candidate> WORST_FIRST = Comparator
+      .comparingInt(Candidate::sharedFollowees)
+      .thenComparing(Comparator.comparingInt(Candidate::node).reversed());
+
+  /**
+   * A suggested node and the number of the user's followees that follow it.
+   */
+  public record Candidate(int node, int sharedFollowees) {
+  }
+
+  private FriendsOfFriends() {
+  }
+
+  /**
+   * @param graph        the graph
+   * @param node         the user, see {@link FollowGraph#node}
+   * @param maxFollowees the number of the user's followees that are expanded at most
+   * @param maxFanout    the number of followees taken from each expanded followee at most
+   * @param limit        the number of candidates to return at most
+   * @param pool         the pool to expand on
+   * @return the best candidates, most shared followees first, ties by node
+   */
+  public static List<Candidate> rank(FollowGraph graph, int node, int maxFollowees, int maxFanout,
+      int limit, ForkJoinPool pool) {
+    int[] followees = graph.following(node);
+    if (followees.length == 0 || limit < 1) {
+      return List.of();
+    }
+    int[] expanded = followees.length > maxFollowees ? graph.following(node, maxFollowees) : followees;
+    int[] reached = pool.invoke(new Expand(graph, expanded, 0, expanded.length, maxFanout));
+
+    PriorityQueue<Candidate> best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+    int i = 0;
+    while (i < reached.length) {
+      int candidate = reached[i];
+      int end = i + 1;
+      while (end < reached.length && reached[end] == candidate) {
+        end++;
+      }
+      if (candidate != node && Arrays.binarySearch(followees, candidate) < 0) {
+        best.add(new Candidate(candidate, end - i));
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+      i = end;
+    }
+
+    List<Candidate> ranked = new ArrayList<>(best);
+    ranked.sort(WORST_FIRST.reversed());
+    return ranked;
+  }
+
+  /**
+   * Collects the followees of {@code sources[from, to)} as one sorted array, duplicates kept.
+   */
+  private static final class Expand extends RecursiveTask<int[]> {
+
+    private final FollowGraph graph;
+    private final int[] sources;
+    private final int from;
+    private final int to;
+    private final int maxFanout;
+
+    Expand(FollowGraph graph, int[] sources, int from, int to, int maxFanout) {
+      this.graph = graph;
+      this.sources = sources;
+      this.from = from;
+      this.to = to;
+      this.maxFanout = maxFanout;
+    }
+
+    @Override
+    protected int[] compute() {
+      if (to - from <= LEAF_SIZE) {
+        int[][] lists = new int[to - from][];
+        int total = 0;
+        for (int i = from; i < to; i++) {
+          lists[i - from] = graph.following(sources[i], maxFanout);
+          total += lists[i - from].length;
+        }
+        int[] reached = new int[total];
+        int size = 0;
+        for (int[] list : lists) {
+          System.arraycopy(list, 0, reached, size, list.length);
+          size += list.length;
+        }
+        Arrays.sort(reached);
+        return reached;
+      }
+      int middle = (from + to) >>> 1;
+      Expand left = new Expand(graph, sources, from, middle, maxFanout);
+      left.fork();
+      int[] right = new Expand(graph, sources, middle, to, maxFanout).compute();
+      return merge(left.join(), right);
+    }
+
+    private static int[] merge(int[] a, int[] b) {
+      int[] merged = new int[a.length + b.length];
+      int i = 0;
+      int j = 0;
+      int k = 0;
+      while (i < a.length && j < b.length) {
+        merged[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+      }
+      System.arraycopy(a, i, merged, k, a.length - i);
+      System.arraycopy(b, j, merged, k + a.length - i, b.length - j);
+      return merged;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package com.pubfinder.pubfinder.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Prefix index from string keys to values. The bulk of the entries is a sorted key array built
+ * once and searched by binary search; entries added later go to a concurrent skip list, and a
+ * search merges both in key order. Rebuilding the index folds the skip list back into the array.
+ *
+ * <p>Entries are never removed. Callers make values stale instead and filter them out with the
+ * predicate passed to {@link #search}, so a change is one insert and never rewrites the array.
+ *
+ * @param <T> the type of the values
+ */
+public class PrefixIndex<T> {
+
+  private record Entry<T>(String key, long sequence, T value) {
+  }
+
+  private static final Comparator<Entry<?>> ORDER =
+      Comparator.<Entry<?>, String>comparing(Entry::key).thenComparingLong(Entry::sequence);
+
+  private final String[] keys;
+  private final Object[] values;
+  private final ConcurrentSkipListSet<Entry<T>> added = new ConcurrentSkipListSet<>(ORDER);
+  private final AtomicLong sequence = new AtomicLong();
+
+  private PrefixIndex(String[] keys, Object[] values) {
+    this.keys = keys;
+    this.values = values;
+  }
+
+  public static <T> PrefixIndex<T> empty() {
+    return new PrefixIndex<>(new String[0], new Object[0]);
+  }
+
+  /**
+   * Add an entry. Safe to call concurrently with searches.
+   */
+  public void add(String key, T value) {
+    added.add(new Entry<>(key, sequence.incrementAndGet(), value));
+  }
+
+  /**
+   * Find the values of the keys starting with {@code prefix}, in key order, each value once.
+   *
+   * @param prefix the prefix
+   * @param limit  the number of values to return at most
+   * @param live   values failing it are skipped
+   * @return the values
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> search(String prefix, int limit, Predicate<T> live) {
+    Set<T> found = new LinkedHashSet<>();
+    int position = lowerBound(prefix);
+    Iterator<Entry<T>> delta = added.tailSet(new Entry<>(prefix, Long.MIN_VALUE, null)).iterator();
+    Entry<T> next = delta.hasNext() ? delta.next() : null;
+    while (found.size() < limit) {
+      boolean baseMatches = position < keys.length && keys[position].startsWith(prefix);
+      boolean deltaMatches = next != null && next.key().startsWith(prefix);
+      T value;
+      if (baseMatches && (!deltaMatches || keys[position].compareTo(next.key()) <= 0)) {
+        value = (T) values[position++];
+      } else if (deltaMatches) {
+        value = next.value();
+        next = delta.hasNext() ? delta.next() : null;
+      } else {
+        break;
+      }
+      if (live.test(value)) {
+        found.add(value);
+      }
+    }
+    return new ArrayList<>(found);
+  }
+
+  /**
+   * @return the number of entries, stale ones included
+   */
+  public int size() {
+    return keys.length + added.size();
+  }
+
+  private int lowerBound(String prefix) {
+    int position = Arrays.binarySearch(keys, prefix);
+    if (position < 0) {
+      return -position - 1;
+    }
+    // Equal keys may precede the one found
+    while (position > 0 && keys[position - 1].equals(prefix)) {
+      position--;
+    }
+    return position;
+  }
+
+  public static class Builder<T> {
+
+    private final List<Entry<T>> entries;
+
+    public Builder(int expectedEntries) {
+      entries = new ArrayList<>(expectedEntries);
+    }
+
+    public Builder<T> add(String key, T value) {
+      entries.add(new Entry<>(key, entries.size(), value));
+      return this;
+    }
+
+    public PrefixIndex<T> build() {
+      entries.sort(ORDER);
+      String[] keys = new String[entries.size()];
+      Object[] values = new Object[entries.size()];
+      for (int i = 0; i < entries.size(); i++) {
+        keys[i] = entries.get(i).key();
+        values[i] = entries.get(i).value();
+      }
+      return new PrefixIndex<>(keys, values);
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.pubfinder.pubfinder.util;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Interns UUIDs to dense int ids, 0, 1, 2, ... in the order they are first seen. Keys are kept as
+ * two parallel long arrays and looked up through an open-addressing table of ints, so there is no
+ * boxing and no object per entry. Ids are never reused. Not thread-safe.
+ */
+public class UuidIndex {
+
+  private static final int EMPTY = -1;
+
+  private long[] mostSigBits;
+  private long[] leastSigBits;
+  private int[] table;
+  private int size;
+
+  public UuidIndex(int expectedSize) {
+    int capacity = Math.max(16, expectedSize);
+    mostSigBits = new long[capacity];
+    leastSigBits = new long[capacity];
+    table = newTable(tableSizeFor(capacity));
+  }
+
+  /**
+   * @return the id of the UUID, or -1 if it has not been interned
+   */
+  public int get(UUID uuid) {
+    return get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+  }
+
+  public int get(long msb, long lsb) {
+    int mask = table.length - 1;
+    for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+      int id = table[slot];
+      if (id == EMPTY) {
+        return EMPTY;
+      }
+      if (mostSigBits[id] == msb && leastSigBits[id] == lsb) {
+        return id;
+      }
+    }
+  }
+
+  /**
+   * @return the id of the UUID, assigning the next free id if it is new
+   */
+  public int intern(UUID uuid) {
+    return intern(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+  }
+
+  public int intern(long msb, long lsb) {
+    int mask = table.length - 1;
+    int slot = hash(msb, lsb) & mask;
+    for (; ; slot = (slot + 1) & mask) {
+      int id = table[slot];
+      if (id == EMPTY) {
+        break;
+      }
+      if (mostSigBits[id] == msb && leastSigBits[id] == lsb) {
+        return id;
+      }
+    }
+    int id = size++;
+    if (id == mostSigBits.length) {
+      mostSigBits = Arrays.copyOf(mostSigBits, id * 2);
+      leastSigBits = Arrays.copyOf(leastSigBits, id * 2);
+    }
+    mostSigBits[id] = msb;
+    leastSigBits[id] = lsb;
+    table[slot] = id;
+    if (size * 2 > table.length) {
+      rehash(table.length * 2);
+    }
+    return id;
+  }
+
+  public UUID uuid(int id) {
+    return new UUID(mostSigBits[id], leastSigBits[id]);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long estimatedBytes() {
+    return 16L * mostSigBits.length + 4L * table.length;
+  }
+
+  private void rehash(int tableSize) {
+    table = newTable(tableSize);
+    int mask = tableSize - 1;
+    for (int id = 0; id < size; id++) {
+      int slot = hash(mostSigBits[id], leastSigBits[id]) & mask;
+      while (table[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      table[slot] = id;
+    }
+  }
+
+  private static int[] newTable(int size) {
+    int[] table = new int[size];
+    Arrays.fill(table, EMPTY);
+    return table;
+  }
+
+  private static int tableSizeFor(int capacity) {
+    return Integer.highestOneBit(capacity * 2 - 1) << 1;
+  }
+
+  /**
+   * SplitMix64 finalizer over both halves; random UUIDs are already well mixed, time-based ones
+   * are not.
+   */
+  private static int hash(long msb, long lsb) {
+    long h = msb * 0x9E3779B97F4A7C15L ^ lsb;
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+    return (int) (h ^ (h >>> 31));
+  }
+}
@@ -0,0 +1,117 @@
+package com.pubfinder.pubfinder.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CacheInvalidationBusTest {
+
+    private final InProcessCacheInvalidationBus node1 = new InProcessCacheInvalidationBus(Duration.ofHours(1));
+    private final InProcessCacheInvalidationBus node2 = new InProcessCacheInvalidationBus(Duration.ofHours(1));
+
+    @AfterEach
+    public void shutdown() {
+        node1.shutdown();
+        node2.shutdown();
+    }
+
+    @Test
+    public void publishedKeysReachPeersCoalesced() {
+        Set<String> received1 = new HashSet<>();
+        Set<String> received2 = new HashSet<>();
+        int[] deliveries = new int[1];
+        node1.subscribe("getUser", recordingListener(received1, new int[1]));
+        node2.subscribe("getUser", recordingListener(received2, deliveries));
+
+        node1.publish("getUser", List.of("a", "b"));
+        node1.publish("getUser", List.of("b", "c"));
+        node1.flush();
+
+        assertEquals(Set.of("a", "b", "c"), received2);
+        assertEquals(1, deliveries[0]);
+        assertTrue(received1.isEmpty(), "An instance must not receive its own broadcast");
+    }
+
+    @Test
+    public void otherCachesAreNotNotified() {
+        Set<String> received = new HashSet<>();
+        node2.subscribe("getUser", recordingListener(received, new int[1]));
+
+        node1.publish("otherCache", List.of("a"));
+        node1.flush();
+
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void keysPublishedDuringFlushAreNotLost() throws Exception {
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        node2.subscribe("getUser", recordingListener(received, new int[1]));
+
+        int publishers = 4;
+        int keysPerPublisher = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(publishers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean publishing = new AtomicBoolean(true);
+        try {
+            List<Future<?>> published = new ArrayList<>();
+            for (int p = 0; p < publishers; p++) {
+                int publisher = p;
+                published.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < keysPerPublisher; i++) {
+                        node1.publish("getUser", List.of(publisher + "-" + i));
+                    }
+                    return null;
+                }));
+            }
+            Future<?> flushing = executor.submit(() -> {
+                start.await();
+                while (publishing.get()) {
+                    node1.flush();
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> future : published) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            publishing.set(false);
+            flushing.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        node1.flush();
+
+        assertEquals(publishers * keysPerPublisher, received.size());
+    }
+
+    private CacheInvalidationListener recordingListener(Set<String> received, int[] deliveries) {
+        return new CacheInvalidationListener() {
+            @Override
+            public void evict(Set<String> keys) {
+                received.addAll(keys);
+                deliveries[0]++;
+            }
+
+            @Override
+            public void clear() {
+            }
+        };
+    }
+}
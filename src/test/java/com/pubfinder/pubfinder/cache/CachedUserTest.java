@@ -0,0 +1,34 @@
+package com.pubfinder.pubfinder.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CachedUserTest {
+
+    @Test
+    public void packsNeighbourIdsAndWeighsThem() {
+        UUID id = UUID.randomUUID();
+        CachedUser user = new CachedUser(id, "username", "firstName", "lastName", 2, 0, 7, 1_000L);
+        assertFalse(user.hasFollowers());
+        assertNull(user.followers());
+
+        List<UUID> followers = Stream.generate(UUID::randomUUID).limit(1000).toList();
+        CachedUser expanded = user.withFollowers(followers);
+
+        assertEquals(id, expanded.id());
+        assertEquals(7, expanded.version());
+        assertEquals(1_000L, expanded.updatedAtMillis());
+        assertTrue(expanded.hasFollowers());
+        assertFalse(expanded.hasFollowing());
+        assertEquals(followers, expanded.followers());
+        assertEquals(16_000, expanded.weight() - user.weight() - 16);
+    }
+}
@@ -0,0 +1,59 @@
+package com.pubfinder.pubfinder.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PostgresCacheInvalidationBusTest {
+
+    private static final String HEADER = "instance|getUser|";
+
+    @Test
+    public void chunkSplitsBelowThePayloadLimit() {
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(UUID.randomUUID().toString());
+        }
+
+        List<String> payloads = PostgresCacheInvalidationBus.chunk(HEADER, keys);
+
+        assertTrue(payloads.size() > 1, "1000 ids do not fit one notification");
+        Set<String> received = new HashSet<>();
+        for (String payload : payloads) {
+            assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= PostgresCacheInvalidationBus.MAX_PAYLOAD_BYTES);
+            PostgresCacheInvalidationBus.Notification notification = PostgresCacheInvalidationBus.parse(payload);
+            assertEquals("instance", notification.instanceId());
+            assertEquals("getUser", notification.cacheName());
+            received.addAll(notification.keys());
+        }
+        assertEquals(keys, received);
+    }
+
+    @Test
+    public void chunkKeepsSmallBatchesInOnePayload() {
+        assertEquals(List.of(HEADER + "a,b"), PostgresCacheInvalidationBus.chunk(HEADER, new LinkedHashSet<>(List.of("a", "b"))));
+        assertTrue(PostgresCacheInvalidationBus.chunk(HEADER, Set.of()).isEmpty());
+    }
+
+    @Test
+    public void parseRejectsMalformedPayloads() {
+        assertNull(PostgresCacheInvalidationBus.parse("instance|getUser"));
+        assertNull(PostgresCacheInvalidationBus.parse("instance|getUser|"));
+        assertNull(PostgresCacheInvalidationBus.parse("garbage"));
+    }
+
+    @Test
+    public void parseSplitsKeys() {
+        PostgresCacheInvalidationBus.Notification notification = PostgresCacheInvalidationBus.parse(HEADER + "a,b,c");
+        assertEquals(Set.of("a", "b", "c"), notification.keys());
+    }
+}
@@ -1,8 +1,13 @@
 package com.pubfinder.pubfinder.cache;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.pubfinder.pubfinder.db.UserRepository;
-import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.dto.UserLookupDto;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.event.UsersChangedEvent;
 import com.pubfinder.pubfinder.exception.ResourceNotFoundException;
+import com.pubfinder.pubfinder.models.enums.UserExpansion;
 import com.pubfinder.pubfinder.service.UserService;
 import com.pubfinder.pubfinder.util.TestUtil;
 import org.junit.jupiter.api.Test;
@@ -11,10 +16,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.CacheManager;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest(properties = {
@@ -29,37 +40,178 @@ public class UserServiceCacheTest {
     private UserRepository userRepository;
     @Autowired
     private CacheManager cacheManager;
+    @Autowired
+    private UserCacheInvalidator userCacheInvalidator;
 
     @Test
     public void testGetUser_CacheMiss() throws ResourceNotFoundException {
         UUID id1 = UUID.randomUUID();
         UUID id2 = UUID.randomUUID();
 
-        when(userRepository.findById(id1)).thenReturn(
-                Optional.ofNullable(TestUtil.generateMockUser(id1)));
-        when(userRepository.findById(id2)).thenReturn(
-                Optional.ofNullable(TestUtil.generateMockUser(id2)));
+        when(userRepository.findProfileById(id1)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id1))));
+        when(userRepository.findProfileById(id2)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id2))));
 
         userService.getUser(id1);
         userService.getUser(id2);
 
-        verify(userRepository, times(1)).findById(id1);
-        verify(userRepository, times(1)).findById(id2);
+        verify(userRepository, times(1)).findProfileById(id1);
+        verify(userRepository, times(1)).findProfileById(id2);
     }
 
     @Test
     public void testGetUser_CacheHit() throws ResourceNotFoundException {
         UUID id = UUID.randomUUID();
 
-        when(userRepository.findById(id)).thenReturn(
-                Optional.ofNullable(TestUtil.generateMockUser(id)));
+        when(userRepository.findProfileById(id)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id))));
 
-        UserDto result1 = userService.getUser(id);
-        UserDto result2 = userService.getUser(id);
+        UserProfileDto result1 = userService.getUser(id);
+        UserProfileDto result2 = userService.getUser(id);
 
         assertEquals(result1, result2);
 
-        verify(userRepository, times(1)).findById(id);
+        verify(userRepository, times(1)).findProfileById(id);
+    }
+
+    @Test
+    public void testGetUser_EvictedAfterFollow() throws ResourceNotFoundException {
+        UUID id = UUID.randomUUID();
+        UUID followId = UUID.randomUUID();
+
+        when(userRepository.findProfileById(id)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id))));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(id, followId));
+        when(userRepository.insertFollowing(id, followId)).thenReturn(1);
+
+        userService.getUser(id);
+        userService.follow(FollowDto.builder().userId(id).followId(followId).build());
+        userService.getUser(id);
+
+        verify(userRepository, times(2)).findProfileById(id);
+    }
+
+    @Test
+    public void testGetUser_NotEvictedWhenFollowIsNoop() throws ResourceNotFoundException {
+        UUID id = UUID.randomUUID();
+        UUID followId = UUID.randomUUID();
+
+        when(userRepository.findProfileById(id)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id))));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(id, followId));
+        when(userRepository.insertFollowing(id, followId)).thenReturn(0);
+
+        userService.getUser(id);
+        userService.follow(FollowDto.builder().userId(id).followId(followId).build());
+        userService.getUser(id);
+
+        verify(userRepository, times(1)).findProfileById(id);
+    }
+
+    @Test
+    public void testGetUser_ExpandedIdsCachedAndEvictedAfterFollow() throws ResourceNotFoundException {
+        UUID id = UUID.randomUUID();
+        UUID followerId = UUID.randomUUID();
+        UUID followId = UUID.randomUUID();
+
+        when(userRepository.findProfileById(id)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id))));
+        when(userRepository.findFollowerIds(id)).thenReturn(List.of(followerId));
+        when(userRepository.findProfilesByIdIn(any())).thenReturn(
+                List.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(followerId))));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(id, followId));
+        when(userRepository.insertFollowing(id, followId)).thenReturn(1);
+
+        userService.getUser(id, EnumSet.of(UserExpansion.FOLLOWERS));
+        UserProfileDto cached = userService.getUser(id, EnumSet.of(UserExpansion.FOLLOWERS));
+        assertEquals(followerId, cached.getFollowers().get(0).getId());
+        verify(userRepository, times(1)).findFollowerIds(id);
+        verify(userRepository, times(1)).findProfilesByIdIn(any());
+
+        userService.follow(FollowDto.builder().userId(id).followId(followId).build());
+        userService.getUser(id, EnumSet.of(UserExpansion.FOLLOWERS));
+        verify(userRepository, times(2)).findFollowerIds(id);
+    }
+
+    @Test
+    public void testGetUser_NotCachedWhenEvictedDuringLoad() throws ResourceNotFoundException {
+        UUID id = UUID.randomUUID();
+        when(userRepository.findProfileById(id)).thenAnswer(invocation -> {
+            // A follow commits after the row was read and before it is cached
+            userCacheInvalidator.onUsersChanged(new UsersChangedEvent(Set.of(id)));
+            return Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id)));
+        });
+
+        userService.getUser(id);
+        userService.getUser(id);
+
+        verify(userRepository, times(2)).findProfileById(id);
     }
 
+    @Test
+    public void testGetUser_ExpandedNotCachedWhenEvictedDuringLoad() throws ResourceNotFoundException {
+        UUID id = UUID.randomUUID();
+        when(userRepository.findProfileById(id)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id))));
+        when(userRepository.findFollowerIds(id)).thenAnswer(invocation -> {
+            userCacheInvalidator.onUsersChanged(new UsersChangedEvent(Set.of(id)));
+            return List.of();
+        });
+
+        userService.getUser(id, EnumSet.of(UserExpansion.FOLLOWERS));
+        userService.getUser(id, EnumSet.of(UserExpansion.FOLLOWERS));
+
+        verify(userRepository, times(2)).findFollowerIds(id);
+    }
+
+    @Test
+    public void testGetUsers_BulkLoadsMisses() throws ResourceNotFoundException {
+        UUID cachedId = UUID.randomUUID();
+        UUID uncachedId = UUID.randomUUID();
+        UUID unknownId = UUID.randomUUID();
+        when(userRepository.findProfileById(cachedId)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(cachedId))));
+        when(userRepository.findProfilesByIdIn(List.of(uncachedId, unknownId))).thenReturn(
+                List.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(uncachedId))));
+        userService.getUser(cachedId);
+
+        List<UserLookupDto> users = userService.getUsers(List.of(unknownId, cachedId, uncachedId, cachedId));
+        assertEquals(List.of(unknownId, cachedId, uncachedId, cachedId), users.stream().map(UserLookupDto::getId).toList());
+        assertEquals(List.of(false, true, true, true), users.stream().map(UserLookupDto::isFound).toList());
+        assertNull(users.get(0).getUser());
+        assertEquals(uncachedId, users.get(2).getUser().getId());
+        verify(userRepository, times(1)).findProfilesByIdIn(List.of(uncachedId, unknownId));
+
+        userService.getUsers(List.of(cachedId, uncachedId));
+        verify(userRepository, times(1)).findProfilesByIdIn(any());
+    }
+
+    @Test
+    public void testGetUsers_NotCachedWhenEvictedDuringLoad() {
+        UUID id = UUID.randomUUID();
+        when(userRepository.findProfilesByIdIn(List.of(id))).thenAnswer(invocation -> {
+            userCacheInvalidator.onUsersChanged(new UsersChangedEvent(Set.of(id)));
+            return List.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id)));
+        });
+
+        userService.getUsers(List.of(id));
+        userService.getUsers(List.of(id));
+
+        verify(userRepository, times(2)).findProfilesByIdIn(List.of(id));
+    }
+
+    @Test
+    public void testGetUserCache_BoundedByWeight() throws ResourceNotFoundException {
+        UUID id = UUID.randomUUID();
+        when(userRepository.findProfileById(id)).thenReturn(
+                Optional.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id))));
+
+        userService.getUser(id);
+
+        Cache<?, ?> nativeCache = (Cache<?, ?>) cacheManager.getCache("getUser").getNativeCache();
+        assertTrue(nativeCache.policy().eviction().orElseThrow().isWeighted());
+        nativeCache.cleanUp();
+        assertTrue(nativeCache.policy().eviction().orElseThrow().weightedSize().orElseThrow() > 0);
+    }
 }
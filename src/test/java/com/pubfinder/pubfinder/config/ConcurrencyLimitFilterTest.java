@@ -0,0 +1,85 @@
+package com.pubfinder.pubfinder.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimitFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HikariDataSource dataSource = new HikariDataSource();
+    private final CountDownLatch inside = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger served = new AtomicInteger();
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        dataSource.close();
+    }
+
+    @Test
+    public void saturatedRequestsFailFastWith503() throws Exception {
+        // One connection and one request per connection: a single permit
+        dataSource.setMaximumPoolSize(1);
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(dataSource, meterRegistry, 1, Duration.ofMillis(20));
+        FilterChain blocking = (request, response) -> {
+            served.incrementAndGet();
+            inside.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(request("/user/1"), new MockHttpServletResponse(), blocking);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("/user/2"), rejected, blocking);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, served.get());
+        assertEquals(1, meterRegistry.get("http.server.requests.rejected").counter().count());
+        assertEquals(1, meterRegistry.get("http.server.requests.in.flight").gauge().value());
+
+        // Actuator requests bypass the limiter, so health checks pass while saturated
+        MockHttpServletResponse health = new MockHttpServletResponse();
+        filter.doFilter(request("/actuator/health"), health, (request, response) -> served.incrementAndGet());
+        assertEquals(HttpStatus.OK.value(), health.getStatus());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        MockHttpServletResponse afterwards = new MockHttpServletResponse();
+        filter.doFilter(request("/user/3"), afterwards, (request, response) -> served.incrementAndGet());
+        assertEquals(HttpStatus.OK.value(), afterwards.getStatus());
+        assertEquals(0, meterRegistry.get("http.server.requests.in.flight").gauge().value());
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("GET", uri);
+    }
+}
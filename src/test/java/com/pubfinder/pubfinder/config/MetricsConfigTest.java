@@ -0,0 +1,67 @@
+package com.pubfinder.pubfinder.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the cache, Hibernate, pool and service metrics, and the per-request statement
+ * count, reach the Prometheus endpoint.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metrics;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE"
+                + ";INIT=CREATE ALIAS IF NOT EXISTS clock_timestamp FOR 'java.time.Instant.now'",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc(addFilters = false)
+@AutoConfigureObservability(tracing = false)
+public class MetricsConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void prometheusExposesApplicationMetrics() throws Exception {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, username, firstname, lastname, email, password, role, "
+                + "follower_count, following_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, "metrics-" + id, "first", "last", id + "@example.com", "password", 1, 0, 0);
+
+        // A miss that loads the profile, then a hit
+        mockMvc.perform(get("/user/{id}", id)).andExpect(status().isOk());
+        mockMvc.perform(get("/user/{id}", id)).andExpect(status().isOk());
+
+        assertTrue(meterRegistry.get("http.server.requests.queries").tag("uri", "/user/{id}").summary().count() >= 2);
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("cache_gets_total{") && line.contains("cache=\"getUser\"")),
+                "getUser cache statistics");
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("hibernate_")), "Hibernate statistics");
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("hikaricp_")), "connection pool metrics");
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("user_service_seconds")), "service timings");
+        assertTrue(scrape.lines().anyMatch(line -> line.startsWith("http_server_requests_queries")
+                && line.contains("uri=\"/user/{id}\"")), "statements per request");
+    }
+}
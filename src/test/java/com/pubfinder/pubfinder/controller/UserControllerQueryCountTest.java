@@ -0,0 +1,481 @@
+package com.pubfinder.pubfinder.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.dto.RelationshipDto;
+import com.pubfinder.pubfinder.dto.RelationshipsDto;
+import com.pubfinder.pubfinder.dto.SuggestionDto;
+import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.UserSummaryDto;
+import com.pubfinder.pubfinder.service.FollowGraphService;
+import com.pubfinder.pubfinder.service.UserSearchService;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements every {@link UserController} endpoint issues against H2 for a user
+ * with 0, 100 and 10,000 followers. The bounds do not grow with the follower count (except where
+ * an endpoint returns every neighbour, and then only per batch of 1000), so an N+1 fails here.
+ * Endpoints answered from the follow graph or the search index are measured both after a rebuild
+ * over the seeded rows and with the structure dropped, which forces their SQL fallback.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:querycount;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE"
+                + ";INIT=CREATE ALIAS IF NOT EXISTS clock_timestamp FOR 'java.time.Instant.now'",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "user.password-hashing.strength=4"
+})
+@AutoConfigureMockMvc(addFilters = false)
+public class UserControllerQueryCountTest {
+
+    @TestConfiguration
+    static class QueryCountConfig {
+
+        @Bean
+        static BeanPostProcessor queryCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                        return ProxyDataSourceBuilder.create(dataSource).name(beanName).countQuery().build();
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    private record Seeded(UUID id, String username, List<UUID> followers, List<UUID> following, String token) {
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private FollowGraphService followGraphService;
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @BeforeEach
+    public void clearCaches() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void register(int followers) throws Exception {
+        seed(followers);
+        String name = "new-" + UUID.randomUUID();
+        UserDto user = UserDto.builder()
+                .username(name).email(name + "@example.com").firstname("first").lastname("last").password("password")
+                .build();
+        assertStatements(2, post("/user/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(user)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void available(int followers) throws Exception {
+        Seeded user = seed(followers);
+        assertStatements(1, get("/user/available").param("username", user.username()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void search(int followers) throws Exception {
+        Seeded user = seed(followers);
+        userSearchService.rebuild();
+        assertSearchResult(user, assertStatements(0, get("/user/search").param("prefix", user.username())));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void searchBeforeIndexBuilt(int followers) throws Exception {
+        Seeded user = seed(followers);
+        ReflectionTestUtils.setField(userSearchService, "state", null);
+        assertSearchResult(user, assertStatements(1, get("/user/search").param("prefix", user.username())));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void getUser(int followers) throws Exception {
+        Seeded user = seed(followers);
+        assertStatements(1, get("/user/{id}", user.id()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void getUserNotModified(int followers) throws Exception {
+        Seeded user = seed(followers);
+        String etag = mockMvc.perform(get("/user/{id}", user.id()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        QueryCountHolder.clear();
+        mockMvc.perform(get("/user/{id}", user.id()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertEquals(0, QueryCountHolder.getGrandTotal().getTotal());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void getUsers(int followers) throws Exception {
+        Seeded user = seed(followers);
+        List<UUID> ids = new ArrayList<>(user.followers().subList(0, Math.min(50, user.followers().size())));
+        ids.add(user.id());
+        ids.add(UUID.randomUUID());
+        assertStatements(1, get("/user").param("ids", ids.stream().map(UUID::toString).toArray(String[]::new)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void lookupUsers(int followers) throws Exception {
+        Seeded user = seed(followers);
+        List<UUID> ids = new ArrayList<>(user.followers().subList(0, Math.min(50, user.followers().size())));
+        ids.add(user.id());
+        ids.add(UUID.randomUUID());
+        assertStatements(1, post("/user/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(ids)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void getUserExpanded(int followers) throws Exception {
+        Seeded user = seed(followers);
+        // The profile, both id lists and one summary query per 1000 uncached neighbours
+        int neighbours = user.followers().size() + user.following().size();
+        assertStatements(3 + ceilDiv(neighbours, 1000), get("/user/{id}", user.id())
+                .param("expand", "followers,following"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void counts(int followers) throws Exception {
+        Seeded user = seed(followers);
+        assertStatements(1, get("/user/{id}/counts", user.id()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void relationship(int followers) throws Exception {
+        Seeded user = seed(followers);
+        UUID other = followers == 0 ? seed(0).id() : user.followers().get(0);
+        followGraphService.rebuild();
+        assertRelationship(followers > 0, assertStatements(0,
+                get("/user/{id}/relationship/{otherId}", user.id(), other)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void relationshipBeforeGraphLoaded(int followers) throws Exception {
+        Seeded user = seed(followers);
+        UUID other = followers == 0 ? seed(0).id() : user.followers().get(0);
+        ReflectionTestUtils.setField(followGraphService, "graph", null);
+        assertRelationship(followers > 0, assertStatements(1,
+                get("/user/{id}/relationship/{otherId}", user.id(), other)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void relationships(int followers) throws Exception {
+        Seeded user = seed(followers);
+        List<UUID> targets = relationshipTargets(user);
+        followGraphService.rebuild();
+        assertRelationships(targets.size(), assertStatements(0, post("/user/{id}/relationships", user.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(targets))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void relationshipsBeforeGraphLoaded(int followers) throws Exception {
+        Seeded user = seed(followers);
+        List<UUID> targets = relationshipTargets(user);
+        ReflectionTestUtils.setField(followGraphService, "graph", null);
+        assertRelationships(targets.size(), assertStatements(1, post("/user/{id}/relationships", user.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(targets))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void suggestions(int followers) throws Exception {
+        Seeded user = seed(followers);
+        UUID viewer = followerOf(user);
+        followGraphService.rebuild();
+        // Ranked from the follow graph, and one summary query
+        assertSuggestions(user, assertStatements(1, get("/user/{id}/suggestions", viewer)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void suggestionsBeforeGraphLoaded(int followers) throws Exception {
+        Seeded user = seed(followers);
+        UUID viewer = followerOf(user);
+        ReflectionTestUtils.setField(followGraphService, "graph", null);
+        // One ranking query and one summary query
+        assertSuggestions(user, assertStatements(2, get("/user/{id}/suggestions", viewer)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void followersPage(int followers) throws Exception {
+        Seeded user = seed(followers);
+        assertStatements(2, get("/user/{id}/followers", user.id()).param("limit", "50"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void followingPage(int followers) throws Exception {
+        Seeded user = seed(followers);
+        assertStatements(2, get("/user/{id}/following", user.id()).param("limit", "50"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void follow(int followers) throws Exception {
+        Seeded user = seed(followers);
+        Seeded other = seed(0);
+        assertStatements(3, post("/user/follow")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FollowDto(other.id(), user.id()))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void unfollow(int followers) throws Exception {
+        Seeded user = seed(followers);
+        Seeded other = seed(0);
+        jdbcTemplate.update("INSERT INTO user_following (user_id, following_id) VALUES (?, ?)", other.id(), user.id());
+        assertStatements(3, post("/user/unfollow")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FollowDto(other.id(), user.id()))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void followBatch(int followers) throws Exception {
+        Seeded user = seed(followers);
+        List<FollowDto> pairs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            pairs.add(new FollowDto(seed(0).id(), user.id()));
+        }
+        // One existence check, one batch of inserts, one batch of counter updates
+        assertStatements(3, post("/user/follow/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(pairs)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void unfollowBatch(int followers) throws Exception {
+        Seeded user = seed(followers);
+        List<FollowDto> pairs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            FollowDto pair = new FollowDto(seed(0).id(), user.id());
+            jdbcTemplate.update("INSERT INTO user_following (user_id, following_id) VALUES (?, ?)",
+                    pair.getUserId(), pair.getFollowId());
+            pairs.add(pair);
+        }
+        // One existence check, one batch of deletes, one batch of counter updates
+        assertStatements(3, post("/user/unfollow/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(pairs)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void revokeUserAccess(int followers) throws Exception {
+        Seeded user = seed(followers);
+        assertStatements(2, delete("/user/revokeUserAccess/{id}", user.id()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void validateToken(int followers) throws Exception {
+        Seeded user = seed(followers);
+        assertStatements(1, get("/user/token/validate")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + user.token()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void edit(int followers) throws Exception {
+        Seeded user = seed(followers);
+        UserDto edited = UserDto.builder()
+                .id(user.id()).username(user.username()).email(user.username() + "@example.com")
+                .firstname("edited").lastname("last").password("password")
+                .build();
+        // The touch bumping the version is one statement, whatever the number of neighbours
+        assertStatements(6, put("/user/edit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(edited)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 100, 10_000})
+    public void deleteUser(int followers) throws Exception {
+        Seeded user = seed(followers);
+        UserDto deleted = UserDto.builder().id(user.id()).build();
+        assertStatements(8, delete("/user/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(deleted)));
+    }
+
+    private MvcResult assertStatements(int maxStatements, RequestBuilder request) throws Exception {
+        QueryCountHolder.clear();
+        MvcResult result = mockMvc.perform(request).andExpect(status().is2xxSuccessful()).andReturn();
+        long statements = QueryCountHolder.getGrandTotal().getTotal();
+        assertTrue(statements <= maxStatements,
+                "Expected at most " + maxStatements + " statements but " + statements + " were issued");
+        return result;
+    }
+
+    private void assertSearchResult(Seeded user, MvcResult result) throws Exception {
+        UserSummaryDto[] found = objectMapper.readValue(result.getResponse().getContentAsString(), UserSummaryDto[].class);
+        assertEquals(List.of(user.id()), Arrays.stream(found).map(UserSummaryDto::getId).toList());
+    }
+
+    private void assertRelationship(boolean expected, MvcResult result) throws Exception {
+        RelationshipDto relationship =
+                objectMapper.readValue(result.getResponse().getContentAsString(), RelationshipDto.class);
+        assertEquals(expected, relationship.isFollowing());
+        assertEquals(expected, relationship.isFollowedBy());
+    }
+
+    /**
+     * Up to 999 followers of the user, every tenth of which it follows back, and a stranger.
+     */
+    private List<UUID> relationshipTargets(Seeded user) {
+        List<UUID> targets = new ArrayList<>(user.followers().subList(0, Math.min(999, user.followers().size())));
+        targets.add(seed(0).id());
+        return targets;
+    }
+
+    private void assertRelationships(int targets, MvcResult result) throws Exception {
+        RelationshipsDto relationships =
+                objectMapper.readValue(result.getResponse().getContentAsString(), RelationshipsDto.class);
+        BitSet following = new BitSet();
+        BitSet followedBy = new BitSet();
+        for (int i = 0; i < targets - 1; i++) {
+            following.set(i, i % 10 == 0);
+            followedBy.set(i);
+        }
+        assertEquals(targets, relationships.getCount());
+        assertEquals(following, BitSet.valueOf(Base64.getDecoder().decode(relationships.getFollowing())));
+        assertEquals(followedBy, BitSet.valueOf(Base64.getDecoder().decode(relationships.getFollowedBy())));
+    }
+
+    /**
+     * Inserts a user following the given one, whose suggestions are the users the given one follows.
+     */
+    private UUID followerOf(Seeded user) {
+        UUID viewer = seed(0).id();
+        jdbcTemplate.update("INSERT INTO user_following (user_id, following_id) VALUES (?, ?)", viewer, user.id());
+        return viewer;
+    }
+
+    private void assertSuggestions(Seeded user, MvcResult result) throws Exception {
+        SuggestionDto[] suggestions =
+                objectMapper.readValue(result.getResponse().getContentAsString(), SuggestionDto[].class);
+        assertEquals(Math.min(20, user.following().size()), suggestions.length);
+        for (SuggestionDto suggestion : suggestions) {
+            assertTrue(user.following().contains(suggestion.getUser().getId()));
+            assertEquals(1, suggestion.getSharedFollowees());
+        }
+    }
+
+    /**
+     * Inserts a user with the given number of followers, following a tenth as many of them and
+     * holding as many tokens as it has followers (at least one).
+     */
+    private Seeded seed(int followers) {
+        UUID id = UUID.randomUUID();
+        String username = "user-" + id;
+        List<UUID> followerIds = new ArrayList<>(followers);
+        List<Object[]> users = new ArrayList<>(followers + 1);
+        users.add(userRow(id, username, followers, followers / 10));
+        for (int i = 0; i < followers; i++) {
+            UUID followerId = UUID.randomUUID();
+            followerIds.add(followerId);
+            users.add(userRow(followerId, "user-" + followerId, i % 10 == 0 ? 1 : 0, 1));
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, username, firstname, lastname, email, password, role, "
+                + "follower_count, following_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", users);
+
+        List<Object[]> edges = new ArrayList<>();
+        List<UUID> followingIds = new ArrayList<>();
+        for (int i = 0; i < followers; i++) {
+            edges.add(new Object[]{followerIds.get(i), id});
+            if (i % 10 == 0) {
+                edges.add(new Object[]{id, followerIds.get(i)});
+                followingIds.add(followerIds.get(i));
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO user_following (user_id, following_id) VALUES (?, ?)", edges);
+
+        List<Object[]> tokens = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, followers); i++) {
+            tokens.add(new Object[]{UUID.randomUUID(), "token-" + id + "-" + i, "BEARER", false, false, id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO token (id, token, token_type, revoked, expired, user_id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", tokens);
+        return new Seeded(id, username, followerIds, followingIds, "token-" + id + "-0");
+    }
+
+    private static Object[] userRow(UUID id, String username, long followerCount, long followingCount) {
+        return new Object[]{id, username, "first", "last", username + "@example.com", "password", 1,
+                followerCount, followingCount};
+    }
+
+    private static int ceilDiv(int x, int y) {
+        return (x + y - 1) / y;
+    }
+}
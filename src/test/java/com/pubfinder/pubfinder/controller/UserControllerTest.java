@@ -1,27 +1,48 @@
 package com.pubfinder.pubfinder.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pubfinder.pubfinder.dto.FollowCountsDto;
 import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.dto.FollowResultDto;
+import com.pubfinder.pubfinder.dto.RelationshipDto;
+import com.pubfinder.pubfinder.dto.RelationshipsDto;
+import com.pubfinder.pubfinder.dto.SuggestionDto;
 import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.UserLookupDto;
+import com.pubfinder.pubfinder.dto.UserPageDto;
+import com.pubfinder.pubfinder.dto.UserSummaryDto;
+import com.pubfinder.pubfinder.dto.UserVersionDto;
+import com.pubfinder.pubfinder.exception.ResourceNotFoundException;
+import com.pubfinder.pubfinder.exception.ServiceUnavailableException;
 import com.pubfinder.pubfinder.models.User;
+import com.pubfinder.pubfinder.models.enums.FollowStatus;
+import com.pubfinder.pubfinder.models.enums.UserExpansion;
 import com.pubfinder.pubfinder.service.UserService;
 import com.pubfinder.pubfinder.util.TestUtil;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(value = UserController.class)
@@ -37,6 +58,11 @@ public class UserControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @BeforeEach
+    public void setUp() throws Exception {
+        when(userService.getUserVersion(any())).thenReturn(new UserVersionDto(3, 1_000_000L));
+    }
+
     @Test
     public void registerUserTest() throws Exception {
         when(userService.registerUser(any())).thenReturn(user.getId());
@@ -63,23 +89,99 @@ public class UserControllerTest {
         mockMvc.perform(put("/user/edit")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(user)))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.password").doesNotExist());
+    }
+
+    @Test
+    public void editUserTest_HashingSaturated() throws Exception {
+        when(userService.edit(any())).thenThrow(new ServiceUnavailableException("The service is busy, please try again."));
+        mockMvc.perform(put("/user/edit")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
     }
 
     @Test
     public void revokeUserAccessTest() throws Exception {
-        doNothing().when(userService).revokeUserAccess(any());
+        when(userService.revokeUserAccess(any())).thenReturn(2);
         mockMvc.perform(delete("/user/revokeUserAccess/{id}", UUID.randomUUID())
                         .contentType(MediaType.APPLICATION_JSON))
-                .andExpect(status().isNoContent());
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("X-Revoked-Tokens", "2"));
+    }
+
+    @Test
+    public void validateTokenTest() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(userService.validateToken("token")).thenReturn(userId);
+        mockMvc.perform(get("/user/token/validate")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-User-Id", userId.toString()));
+    }
+
+    @Test
+    public void validateTokenTest_Invalid() throws Exception {
+        when(userService.validateToken("token")).thenThrow(new BadCredentialsException("Invalid token"));
+        mockMvc.perform(get("/user/token/validate")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer token"))
+                .andExpect(status().isUnauthorized());
     }
 
     @Test
     public void getUserTest() throws Exception {
-        when(userService.getUser(user.getId())).thenReturn(TestUtil.generateMockUserDTO());
-        mockMvc.perform(get("/user/{id}", UUID.randomUUID())
+        UUID id = UUID.randomUUID();
+        when(userService.getUser(id)).thenReturn(TestUtil.generateMockUserProfileDto(id));
+        mockMvc.perform(get("/user/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("username"))
+                .andExpect(jsonPath("$.followers").doesNotExist())
+                .andExpect(jsonPath("$.following").doesNotExist())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    public void getUserTest_NotModified() throws Exception {
+        UUID id = UUID.randomUUID();
+        mockMvc.perform(get("/user/{id}", id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        verify(userService, never()).getUser(id);
+    }
+
+    @Test
+    public void getUserTest_Modified() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(userService.getUser(id)).thenReturn(TestUtil.generateMockUserProfileDto(id));
+        mockMvc.perform(get("/user/{id}", id)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    public void getUserTest_Expand() throws Exception {
+        UUID id = UUID.randomUUID();
+        when(userService.getUser(id, EnumSet.of(UserExpansion.FOLLOWERS)))
+                .thenReturn(TestUtil.generateMockUserProfileDto(id));
+        mockMvc.perform(get("/user/{id}", id)
+                        .param("expand", "followers")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
+        verify(userService, never()).getUser(id);
+    }
+
+    @Test
+    public void getUserTest_UnknownExpansion() throws Exception {
+        mockMvc.perform(get("/user/{id}", UUID.randomUUID())
+                        .param("fields", "password")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -88,7 +190,8 @@ public class UserControllerTest {
         User utf = TestUtil.generateMockUser(UUID.randomUUID());
         FollowDto followDto = TestUtil.generateFollowDto(u, utf);
 
-        when(userService.follow(followDto)).thenReturn(user);
+        when(userService.follow(followDto)).thenReturn(
+                new FollowResultDto(u.getId(), utf.getId(), FollowStatus.FOLLOWED));
         mockMvc.perform(post("/user/follow")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(followDto)))
@@ -101,21 +204,137 @@ public class UserControllerTest {
         User utf = TestUtil.generateMockUser(UUID.randomUUID());
         FollowDto followDto = TestUtil.generateFollowDto(u, utf);
 
-        doNothing().when(userService).unfollow(any());
+        when(userService.unfollow(followDto)).thenReturn(
+                new FollowResultDto(u.getId(), utf.getId(), FollowStatus.UNFOLLOWED));
         mockMvc.perform(post("/user/unfollow")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(followDto)))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void followBatchTest() throws Exception {
+        User u = TestUtil.generateMockUser(UUID.randomUUID());
+        User utf = TestUtil.generateMockUser(UUID.randomUUID());
+        List<FollowDto> pairs = List.of(TestUtil.generateFollowDto(u, utf));
+
+        when(userService.followBatch(pairs)).thenReturn(
+                List.of(new FollowResultDto(u.getId(), utf.getId(), FollowStatus.FOLLOWED)));
+        mockMvc.perform(post("/user/follow/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(pairs)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void searchTest() throws Exception {
+        UserSummaryDto found = new UserSummaryDto(UUID.randomUUID(), "username", "firstname", "lastname");
+        when(userService.searchUsers("user", 5)).thenReturn(List.of(found));
+        mockMvc.perform(get("/user/search")
+                        .param("prefix", "user")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(found.getId().toString()))
+                .andExpect(jsonPath("$[0].username").value("username"));
+    }
+
+    @Test
+    public void getUsersTest() throws Exception {
+        UUID found = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        when(userService.getUsers(List.of(found, missing))).thenReturn(List.of(
+                new UserLookupDto(found, true, TestUtil.generateMockUserProfileDto(found)),
+                new UserLookupDto(missing, false, null)));
+        mockMvc.perform(get("/user")
+                        .param("ids", found.toString(), missing.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].found").value(true))
+                .andExpect(jsonPath("$[0].user.id").value(found.toString()))
+                .andExpect(jsonPath("$[1].id").value(missing.toString()))
+                .andExpect(jsonPath("$[1].found").value(false))
+                .andExpect(jsonPath("$[1].user").doesNotExist());
+    }
+
+    @Test
+    public void getRelationshipTest() throws Exception {
+        UUID otherId = UUID.randomUUID();
+        when(userService.getRelationship(user.getId(), otherId))
+                .thenReturn(new RelationshipDto(user.getId(), otherId, true, false));
+        mockMvc.perform(get("/user/{id}/relationship/{otherId}", user.getId(), otherId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.following").value(true))
+                .andExpect(jsonPath("$.followedBy").value(false));
+    }
+
+    @Test
+    public void getRelationshipsTest() throws Exception {
+        List<UUID> targets = List.of(UUID.randomUUID(), UUID.randomUUID());
+        when(userService.getRelationships(user.getId(), targets))
+                .thenReturn(new RelationshipsDto(user.getId(), 2, "AQ==", "Ag=="));
+        mockMvc.perform(post("/user/{id}/relationships", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(targets)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.following").value("AQ=="))
+                .andExpect(jsonPath("$.followedBy").value("Ag=="));
+    }
+
+    @Test
+    public void getSuggestionsTest() throws Exception {
+        UserSummaryDto suggested = new UserSummaryDto(UUID.randomUUID(), "username", "firstname", "lastname");
+        when(userService.getSuggestions(user.getId(), 10)).thenReturn(List.of(new SuggestionDto(suggested, 4)));
+        mockMvc.perform(get("/user/{id}/suggestions", user.getId())
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].user.id").value(suggested.getId().toString()))
+                .andExpect(jsonPath("$[0].sharedFollowees").value(4));
+    }
+
+    @Test
+    public void getFollowCountsTest() throws Exception {
+        when(userService.getFollowCounts(user.getId())).thenReturn(new FollowCountsDto(4, 2));
+        mockMvc.perform(get("/user/{id}/counts", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.followers").value(4))
+                .andExpect(jsonPath("$.following").value(2));
+    }
+
+    @Test
+    public void getFollowCountsTest_NotFound() throws Exception {
+        when(userService.getFollowCounts(user.getId()))
+                .thenThrow(new ResourceNotFoundException("User with id: " + user.getId() + " was not found"));
+        mockMvc.perform(get("/user/{id}/counts", user.getId()))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void getFollowersTest() throws Exception {
-        UserDto utfDto = TestUtil.generateMockUserDTO();
-        when(userService.getFollowers(user.getId())).thenReturn(List.of(utfDto));
+        UserPageDto page = UserPageDto.builder().users(List.of()).build();
+        when(userService.getFollowers(user.getId(), null, 50)).thenReturn(page);
         mockMvc.perform(get("/user/{id}/followers", user.getId())
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void getFollowingTest() throws Exception {
+        UserPageDto page = UserPageDto.builder().users(List.of()).build();
+        when(userService.getFollowing(user.getId(), "cursor", 10)).thenReturn(page);
+        mockMvc.perform(get("/user/{id}/following", user.getId())
+                        .param("cursor", "cursor")
+                        .param("limit", "10")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getFollowersTest_NotModified() throws Exception {
+        mockMvc.perform(get("/user/{id}/followers", user.getId())
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, "Thu, 01 Jan 1970 00:16:40 GMT"))
+                .andExpect(status().isNotModified());
+        verify(userService, never()).getFollowers(any(), any(), anyInt());
+    }
+
     UserDto user = TestUtil.generateMockUserDTO();
 }
@@ -69,4 +69,37 @@ public class TokenRepositoryTest {
 
     assertEquals(foundTokens.size(), 3);
   }
+
+  @Test
+  public void deleteAllByUserIdTest() {
+    User user = userRepository.save(TestUtil.generateMockUser(null));
+    User otherUser = TestUtil.generateMockUser(null);
+    otherUser.setUsername("other");
+    otherUser.setEmail("other");
+    otherUser = userRepository.save(otherUser);
+    tokenRepository.saveAll(TestUtil.generateListOfMockedTokens(user));
+    Token otherToken = TestUtil.generateMockToken(otherUser);
+    otherToken.setToken("otherToken");
+    tokenRepository.save(otherToken);
+
+    assertEquals(3, tokenRepository.deleteAllByUserId(user.getId()));
+    assertTrue(tokenRepository.findAllTokensByUser(user.getId()).isEmpty());
+    assertEquals(1, tokenRepository.findAllTokensByUser(otherUser.getId()).size());
+  }
+
+  @Test
+  public void deleteDeadTokensTest() {
+    User user = userRepository.save(TestUtil.generateMockUser(null));
+    List<Token> tokens = TestUtil.generateListOfMockedTokens(user);
+    tokens.get(0).setRevoked(true);
+    tokens.get(1).setExpired(true);
+    tokenRepository.saveAll(tokens);
+
+    assertEquals(1, tokenRepository.deleteDeadTokens(1));
+    assertEquals(1, tokenRepository.deleteDeadTokens(10));
+    assertEquals(0, tokenRepository.deleteDeadTokens(10));
+    List<Token> remaining = tokenRepository.findAllTokensByUser(user.getId());
+    assertEquals(1, remaining.size());
+    assertEquals("token3", remaining.get(0).getToken());
+  }
 }
@@ -2,6 +2,7 @@ package com.pubfinder.pubfinder.repository;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
+import com.pubfinder.pubfinder.db.FollowCountsView;
 import com.pubfinder.pubfinder.db.UserRepository;
 import com.pubfinder.pubfinder.models.User;
 import com.pubfinder.pubfinder.util.TestUtil;
@@ -12,6 +13,7 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -112,6 +114,53 @@ public class UserRepositoryTest {
     assertEquals(0, u2.get().getFollowers().size(), "User2 should have 0 followers after user1 is deleted");
   }
 
+  @Test
+  public void insertAndDeleteFollowingTest() {
+    User savedUser = userRepository.save(TestUtil.generateMockUser(null));
+    User user2 = TestUtil.generateMockUser(null);
+    user2.setUsername("username2");
+    user2.setEmail("email2");
+    User savedUser2 = userRepository.save(user2);
+
+    assertEquals(1, userRepository.insertFollowing(savedUser.getId(), savedUser2.getId()));
+    assertEquals(0, userRepository.insertFollowing(savedUser.getId(), savedUser2.getId()));
+    assertEquals(1, userRepository.findFollowersPage(savedUser2.getId(), new UUID(0L, 0L), 10).size());
+
+    assertEquals(1, userRepository.deleteFollowing(savedUser.getId(), savedUser2.getId()));
+    assertEquals(0, userRepository.deleteFollowing(savedUser.getId(), savedUser2.getId()));
+    assertTrue(userRepository.findFollowersPage(savedUser2.getId(), new UUID(0L, 0L), 10).isEmpty());
+  }
+
+  @Test
+  public void reconcileFollowCountsTest() {
+    User savedUser = userRepository.save(TestUtil.generateMockUser(null));
+    User user2 = TestUtil.generateMockUser(null);
+    user2.setUsername("username2");
+    user2.setEmail("email2");
+    User savedUser2 = userRepository.save(user2);
+    User user3 = TestUtil.generateMockUser(null);
+    user3.setUsername("username3");
+    user3.setEmail("email3");
+    User savedUser3 = userRepository.save(user3);
+
+    // One edge, but counters that claim five
+    userRepository.insertFollowing(savedUser.getId(), savedUser2.getId());
+    userRepository.adjustFollowCounts(savedUser.getId(), savedUser2.getId(), 5);
+
+    assertEquals(2, userRepository.reconcileFollowCounts());
+    FollowCountsView counts = userRepository.findFollowCountsById(savedUser.getId()).orElseThrow();
+    assertEquals(0, counts.getFollowerCount());
+    assertEquals(1, counts.getFollowingCount());
+    FollowCountsView counts2 = userRepository.findFollowCountsById(savedUser2.getId()).orElseThrow();
+    assertEquals(1, counts2.getFollowerCount());
+    assertEquals(0, counts2.getFollowingCount());
+    FollowCountsView counts3 = userRepository.findFollowCountsById(savedUser3.getId()).orElseThrow();
+    assertEquals(0, counts3.getFollowerCount());
+    assertEquals(0, counts3.getFollowingCount());
+
+    assertEquals(0, userRepository.reconcileFollowCounts());
+  }
+
   @Test
   public void editUser() {
     User savedUser = userRepository.save(TestUtil.generateMockUser(null));
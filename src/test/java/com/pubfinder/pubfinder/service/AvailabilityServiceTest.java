@@ -0,0 +1,93 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.cache.CacheInvalidationListener;
+import com.pubfinder.pubfinder.cache.InProcessCacheInvalidationBus;
+import com.pubfinder.pubfinder.db.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+        "spring.cache.type=none",
+        "spring.datasource.url=",
+        "spring.jpa.database-platform=",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+public class AvailabilityServiceTest {
+
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    @Autowired
+    private InProcessCacheInvalidationBus invalidationBus;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    private final InProcessCacheInvalidationBus peer = new InProcessCacheInvalidationBus(Duration.ofHours(1));
+
+    @AfterEach
+    public void shutdown() {
+        peer.shutdown();
+    }
+
+    @Test
+    public void rebuildReplaysValuesTakenDuringTheScan() {
+        when(userRepository.findCredentialsPage(any(), anyInt())).thenAnswer(invocation -> {
+            // A registration commits while the scan is running
+            availabilityService.taken("late-user", "late@example.com");
+            return List.of();
+        });
+        when(userRepository.existsByUsername("late-user")).thenReturn(true);
+
+        availabilityService.rebuild();
+
+        assertFalse(availabilityService.check("late-user", null).getUsernameAvailable());
+        assertTrue(availabilityService.check("free-user", null).getUsernameAvailable());
+        verify(userRepository, never()).existsByUsername("free-user");
+    }
+
+    @Test
+    public void takenValuesReachPeers() {
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        peer.subscribe(AvailabilityService.AVAILABILITY, new CacheInvalidationListener() {
+            @Override
+            public void evict(Set<String> keys) {
+                received.addAll(keys);
+            }
+
+            @Override
+            public void clear() {
+            }
+        });
+
+        availabilityService.taken("peer-user", "peer@example.com");
+        invalidationBus.flush();
+        assertEquals(2, received.size());
+
+        // Forget the local put, then receive the same values back as if from another replica
+        availabilityService.rebuild();
+        assertTrue(availabilityService.check("peer-user", null).getUsernameAvailable());
+        verify(userRepository, never()).existsByUsername("peer-user");
+
+        peer.publish(AvailabilityService.AVAILABILITY, received);
+        peer.flush();
+        availabilityService.check("peer-user", "peer@example.com");
+        verify(userRepository).existsByUsername("peer-user");
+        verify(userRepository).existsByEmail("peer@example.com");
+    }
+}
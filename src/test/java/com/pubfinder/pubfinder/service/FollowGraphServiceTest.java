@@ -0,0 +1,61 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.cache.InProcessCacheInvalidationBus;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.event.FollowsChangedEvent;
+import com.pubfinder.pubfinder.util.FollowGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.cache.type=none",
+        "spring.datasource.url=",
+        "spring.jpa.database-platform=",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+public class FollowGraphServiceTest {
+
+    @Autowired
+    private FollowGraphService followGraphService;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    private final InProcessCacheInvalidationBus peer = new InProcessCacheInvalidationBus(Duration.ofHours(1));
+
+    @AfterEach
+    public void shutdown() {
+        peer.shutdown();
+    }
+
+    @Test
+    public void reloadKeepsLocalChangesMadeDuringTheRead() {
+        UUID remote = UUID.randomUUID();
+        UUID local = UUID.randomUUID();
+        UUID other = UUID.randomUUID();
+        when(userRepository.findFollowingIds(remote)).thenAnswer(invocation -> {
+            // A local follow commits after the read saw the database
+            followGraphService.onFollowsChanged(new FollowsChangedEvent(List.of(new FollowDto(remote, local)), true));
+            return List.of(other);
+        });
+        when(userRepository.findFollowerIds(remote)).thenReturn(List.of());
+
+        peer.publish(FollowGraphService.FOLLOW_GRAPH, List.of(remote.toString()));
+        peer.flush();
+
+        FollowGraph graph = followGraphService.graph().orElseThrow();
+        assertTrue(graph.follows(remote, other));
+        assertTrue(graph.follows(remote, local));
+    }
+}
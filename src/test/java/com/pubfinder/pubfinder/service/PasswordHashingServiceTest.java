@@ -0,0 +1,96 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PasswordHashingServiceTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingService service;
+
+    @AfterEach
+    public void shutdown() {
+        release.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    public void encodeTest() {
+        service = new PasswordHashingService(new BlockingEncoder(), meterRegistry, 1, 1, Duration.ofSeconds(5));
+        release.countDown();
+        assertEquals("hashed:password", service.encode("password"));
+    }
+
+    @Test
+    public void encodeTest_QueueFull() throws Exception {
+        // One thread and one queue slot: the first hash runs, the second waits, the third is rejected
+        service = new PasswordHashingService(new BlockingEncoder(), meterRegistry, 1, 1, Duration.ofSeconds(30));
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> service.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> service.encode("second"));
+        awaitQueued(1);
+
+        assertThrows(ServiceUnavailableException.class, () -> service.encode("third"));
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("hashed:first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hashed:second", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void encodeTest_Timeout() {
+        service = new PasswordHashingService(new BlockingEncoder(), meterRegistry, 1, 1, Duration.ofMillis(50));
+
+        assertThrows(ServiceUnavailableException.class, () -> service.encode("password"));
+        assertEquals(1, meterRegistry.get("password.hashing.rejected").counter().count());
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("executor.queued").tag("name", "password.hashing").gauge().value() < expected) {
+            assertTrue(System.nanoTime() < deadline, "The hash request was never queued");
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Encoder that blocks until released, so the pool can be saturated on purpose.
+     */
+    private class BlockingEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return "hashed:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.cache.InProcessCacheInvalidationBus;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.event.FollowsChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.cache.type=none",
+        "spring.datasource.url=",
+        "spring.jpa.database-platform=",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+public class SuggestionServiceTest {
+
+    @Autowired
+    private SuggestionService suggestionService;
+
+    @Autowired
+    private FollowGraphService followGraphService;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    private final InProcessCacheInvalidationBus peer = new InProcessCacheInvalidationBus(Duration.ofHours(1));
+
+    @AfterEach
+    public void shutdown() {
+        peer.shutdown();
+    }
+
+    @Test
+    public void rankingEvictedOncePeerFollowReachesTheGraph() {
+        UUID user = UUID.randomUUID();
+        UUID followee = UUID.randomUUID();
+        UUID suggested = UUID.randomUUID();
+        UUID followedOnPeer = UUID.randomUUID();
+        followGraphService.onFollowsChanged(new FollowsChangedEvent(List.of(
+                new FollowDto(user, followee), new FollowDto(followee, suggested)), true));
+        assertEquals(List.of(suggested), ids(suggestionService.suggest(user, 10)));
+
+        // Another instance commits followee -> followedOnPeer and announces the follow graph change
+        when(userRepository.findFollowingIds(followee)).thenReturn(List.of(suggested, followedOnPeer));
+        when(userRepository.findFollowerIds(followee)).thenReturn(List.of(user));
+        peer.publish(FollowGraphService.FOLLOW_GRAPH, List.of(followee.toString()));
+        peer.flush();
+
+        assertEquals(2, ids(suggestionService.suggest(user, 10)).size());
+    }
+
+    private static List<UUID> ids(List<SuggestionService.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestionService.Suggestion::id).toList();
+    }
+}
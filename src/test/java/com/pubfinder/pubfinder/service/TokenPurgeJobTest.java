@@ -0,0 +1,51 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.db.TokenRepository;
+import com.pubfinder.pubfinder.db.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {
+        "spring.cache.type=none",
+        "spring.datasource.url=",
+        "spring.jpa.database-platform=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "user.tokens.purge.batch-size=100",
+        "user.tokens.purge.max-rows-per-run=250",
+        "user.tokens.purge.pause-between-batches=PT0S"
+})
+public class TokenPurgeJobTest {
+
+    @Autowired
+    private TokenPurgeJob tokenPurgeJob;
+
+    @MockitoBean
+    private TokenRepository tokenRepository;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @Test
+    public void purgeStopsAtFirstPartialBatch() {
+        when(tokenRepository.deleteDeadTokens(anyInt())).thenReturn(100, 40);
+
+        assertEquals(140, tokenPurgeJob.purge());
+        verify(tokenRepository, times(2)).deleteDeadTokens(100);
+    }
+
+    @Test
+    public void purgeStopsAtRowBudget() {
+        when(tokenRepository.deleteDeadTokens(100)).thenReturn(100);
+        when(tokenRepository.deleteDeadTokens(50)).thenReturn(50);
+
+        assertEquals(250, tokenPurgeJob.purge());
+        verify(tokenRepository, times(2)).deleteDeadTokens(100);
+        verify(tokenRepository, times(1)).deleteDeadTokens(50);
+    }
+}
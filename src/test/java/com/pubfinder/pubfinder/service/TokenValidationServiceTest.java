@@ -0,0 +1,66 @@
+package com.pubfinder.pubfinder.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pubfinder.pubfinder.cache.InProcessCacheInvalidationBus;
+import com.pubfinder.pubfinder.db.TokenRepository;
+import com.pubfinder.pubfinder.models.Token;
+import com.pubfinder.pubfinder.models.User;
+import com.pubfinder.pubfinder.util.TestUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TokenValidationServiceTest {
+
+    private final TokenRepository tokenRepository = mock(TokenRepository.class);
+    private final InProcessCacheInvalidationBus invalidationBus = new InProcessCacheInvalidationBus(Duration.ofHours(1));
+    private final TokenValidationService service = new TokenValidationService(tokenRepository, invalidationBus,
+            new ObjectMapper(), new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), Duration.ofSeconds(30));
+
+    @AfterEach
+    public void shutdown() {
+        invalidationBus.shutdown();
+    }
+
+    @Test
+    public void validateTest() {
+        User user = TestUtil.generateMockUser(UUID.randomUUID());
+        when(tokenRepository.findByToken("token")).thenReturn(Optional.of(TestUtil.generateMockToken(user)));
+
+        assertEquals(Optional.of(user.getId()), service.validate("token"));
+        assertEquals(Optional.of(user.getId()), service.validate("token"));
+        verify(tokenRepository, times(1)).findByToken("token");
+    }
+
+    @Test
+    public void validateTest_UnknownTokenIsNotCached() {
+        User user = TestUtil.generateMockUser(UUID.randomUUID());
+        when(tokenRepository.findByToken("token")).thenReturn(Optional.empty());
+        assertTrue(service.validate("token").isEmpty());
+
+        // The login that issued the token commits right after the first check
+        when(tokenRepository.findByToken("token")).thenReturn(Optional.of(TestUtil.generateMockToken(user)));
+        assertEquals(Optional.of(user.getId()), service.validate("token"));
+    }
+
+    @Test
+    public void validateTest_TokenWithoutUser() {
+        Token orphan = TestUtil.generateMockToken(null);
+        when(tokenRepository.findByToken("token")).thenReturn(Optional.of(orphan));
+
+        assertTrue(service.validate("token").isEmpty());
+        assertTrue(service.validate("token").isEmpty());
+        verify(tokenRepository, times(1)).findByToken("token");
+    }
+}
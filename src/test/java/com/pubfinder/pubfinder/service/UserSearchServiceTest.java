@@ -0,0 +1,59 @@
+package com.pubfinder.pubfinder.service;
+
+import com.pubfinder.pubfinder.cache.InProcessCacheInvalidationBus;
+import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.event.UserNamesChangedEvent;
+import com.pubfinder.pubfinder.util.TestUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.cache.type=none",
+        "spring.datasource.url=",
+        "spring.jpa.database-platform=",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+public class UserSearchServiceTest {
+
+    @Autowired
+    private UserSearchService userSearchService;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    private final InProcessCacheInvalidationBus peer = new InProcessCacheInvalidationBus(Duration.ofHours(1));
+
+    @AfterEach
+    public void shutdown() {
+        peer.shutdown();
+    }
+
+    @Test
+    public void reloadKeepsLocalRenamesMadeDuringTheRead() {
+        UUID id = UUID.randomUUID();
+        when(userRepository.findProfilesByIdIn(List.of(id))).thenAnswer(invocation -> {
+            // A local rename commits after the read saw the database
+            userSearchService.onUserNamesChanged(new UserNamesChangedEvent(id, "renamed", "first", "last"));
+            return List.of(TestUtil.generateUserProfileView(TestUtil.generateMockUser(id)));
+        });
+
+        peer.publish(UserSearchService.USER_SEARCH, List.of(id.toString()));
+        peer.flush();
+
+        List<UserSearchService.IndexedUser> found = userSearchService.search("renamed", 10);
+        assertEquals(1, found.size());
+        assertEquals(id, found.get(0).id());
+        assertTrue(userSearchService.search("username", 10).isEmpty());
+    }
+}
@@ -1,29 +1,62 @@
 package com.pubfinder.pubfinder.service;
 
+import com.pubfinder.pubfinder.db.FollowBatchRepository;
+import com.pubfinder.pubfinder.db.FollowCountsView;
 import com.pubfinder.pubfinder.db.TokenRepository;
 import com.pubfinder.pubfinder.db.UserRepository;
+import com.pubfinder.pubfinder.db.UserSummaryView;
+import com.pubfinder.pubfinder.dto.AvailabilityDto;
+import com.pubfinder.pubfinder.dto.FollowCountsDto;
 import com.pubfinder.pubfinder.dto.FollowDto;
+import com.pubfinder.pubfinder.dto.FollowResultDto;
+import com.pubfinder.pubfinder.dto.RelationshipDto;
+import com.pubfinder.pubfinder.dto.RelationshipsDto;
+import com.pubfinder.pubfinder.dto.SuggestionDto;
 import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.UserPageDto;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
+import com.pubfinder.pubfinder.dto.UserSummaryDto;
+import com.pubfinder.pubfinder.dto.UserVersionDto;
 import com.pubfinder.pubfinder.exception.BadRequestException;
 import com.pubfinder.pubfinder.exception.ResourceNotFoundException;
 import com.pubfinder.pubfinder.mapper.Mapper;
 import com.pubfinder.pubfinder.models.Token;
 import com.pubfinder.pubfinder.models.User;
+import com.pubfinder.pubfinder.models.enums.FollowStatus;
+import com.pubfinder.pubfinder.models.enums.UserExpansion;
+import com.pubfinder.pubfinder.util.FollowGraph;
 import com.pubfinder.pubfinder.util.TestUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
-
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest(properties = {
@@ -44,63 +77,178 @@ public class UserServiceTest {
     @MockitoBean
     private UserRepository userRepository;
 
+    @MockitoBean
+    private FollowBatchRepository followBatchRepository;
+
+    @MockitoBean
+    private FollowGraphService followGraphService;
+
+    @MockitoBean
+    private SuggestionService suggestionService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @MockitoSpyBean
+    private PasswordHashingService passwordHashingService;
+
     @MockitoBean
     private HttpServletRequest request;
 
     @Test
     public void registerUserTest() throws BadRequestException {
-        when(userRepository.findByEmail(any())).thenReturn(Optional.empty());
-        when(userRepository.findByUsername(any())).thenReturn(Optional.empty());
-        when(userRepository.save(any())).thenReturn(user);
-        when(tokenRepository.save(any())).thenReturn(new Token());
+        when(userRepository.saveAndFlush(any())).thenReturn(user);
 
         userService.registerUser(user);
-        verify(userRepository, times(1)).save(user);
+        verify(userRepository, times(1)).findCredentialsByEmailOrUsername(user.getEmail(), user.getUsername());
+        verify(userRepository, times(1)).saveAndFlush(user);
+        verify(userRepository, never()).findByEmail(any());
+        verify(userRepository, never()).findByUsername(any());
     }
 
     @Test
     public void registerUserTestBadRequest() {
-        when(userRepository.findByEmail(any())).thenReturn(Optional.ofNullable(user));
-        assertThrows(BadRequestException.class, () -> userService.registerUser(user));
+        when(userRepository.findCredentialsByEmailOrUsername(any(), any()))
+                .thenReturn(List.of(TestUtil.generateCredentialsView(user.getEmail(), "other")));
+        BadRequestException e = assertThrows(BadRequestException.class, () -> userService.registerUser(user));
+        assertTrue(e.getMessage().contains(user.getEmail()));
+        verify(userRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void registerUserTestConstraintViolation() {
+        when(userRepository.findCredentialsByEmailOrUsername(any(), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(TestUtil.generateCredentialsView("other", user.getUsername())));
+        when(userRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        BadRequestException e = assertThrows(BadRequestException.class, () -> userService.registerUser(user));
+        assertTrue(e.getMessage().contains(user.getUsername()));
+    }
+
+    @Test
+    public void checkAvailabilityTest() {
+        String username = "free-" + UUID.randomUUID();
+        AvailabilityDto availability = userService.checkAvailability(username, null);
+
+        assertTrue(availability.getUsernameAvailable());
+        assertNull(availability.getEmailAvailable());
+        verify(userRepository, never()).existsByUsername(any());
+    }
+
+    @Test
+    public void checkAvailabilityTest_Registered() {
+        User registered = TestUtil.generateMockUser(UUID.randomUUID());
+        registered.setUsername("taken-" + UUID.randomUUID());
+        when(userRepository.saveAndFlush(any())).thenReturn(registered);
+        when(userRepository.existsByUsername(registered.getUsername())).thenReturn(true);
+
+        userService.registerUser(registered);
+        AvailabilityDto availability = userService.checkAvailability(registered.getUsername(), null);
+
+        assertFalse(availability.getUsernameAvailable());
+        verify(userRepository, times(1)).existsByUsername(registered.getUsername());
+    }
+
+    @Test
+    public void checkAvailabilityTest_BadRequest() {
+        assertThrows(BadRequestException.class, () -> userService.checkAvailability(null, null));
+    }
+
+    @Test
+    public void searchUsersTest_Registered() {
+        String suffix = UUID.randomUUID().toString();
+        User registered = TestUtil.generateMockUser(UUID.randomUUID());
+        registered.setUsername("search-" + suffix);
+        registered.setFirstname("Ada");
+        registered.setLastname("Lovelace-" + suffix);
+        when(userRepository.saveAndFlush(any())).thenReturn(registered);
+
+        userService.registerUser(registered);
+
+        assertEquals(List.of(registered.getId()), userService.searchUsers("SEARCH-" + suffix.substring(0, 8), 10)
+                .stream().map(UserSummaryDto::getId).toList());
+        assertEquals(registered.getUsername(), userService.searchUsers("ada lovelace-" + suffix, 10).get(0).getUsername());
+        verify(userRepository, never()).findByUsernamePattern(any(), anyInt());
+    }
+
+    @Test
+    public void searchUsersTest_EditedAndDeleted() throws ResourceNotFoundException {
+        String suffix = UUID.randomUUID().toString();
+        User registered = TestUtil.generateMockUser(UUID.randomUUID());
+        registered.setUsername("before-" + suffix);
+        when(userRepository.saveAndFlush(any())).thenReturn(registered);
+        userService.registerUser(registered);
+
+        User edited = TestUtil.generateMockUser(registered.getId());
+        edited.setUsername("after-" + suffix);
+        when(userRepository.findById(registered.getId())).thenReturn(Optional.of(registered));
+        userService.edit(edited);
+
+        assertTrue(userService.searchUsers("before-" + suffix, 10).isEmpty());
+        assertEquals(1, userService.searchUsers("after-" + suffix, 10).size());
+
+        when(userRepository.existsById(registered.getId())).thenReturn(true);
+        userService.delete(registered);
+        assertTrue(userService.searchUsers("after-" + suffix, 10).isEmpty());
+    }
+
+    @Test
+    public void searchUsersTest_BadRequest() {
+        assertThrows(BadRequestException.class, () -> userService.searchUsers(" ", 10));
+        assertThrows(BadRequestException.class, () -> userService.searchUsers("a", 0));
     }
 
     @Test
     public void deleteUserTest() throws ResourceNotFoundException {
-        doNothing().when(userRepository).delete(user);
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(tokenRepository.findAllTokensByUser(user.getId())).thenReturn(List.of(token));
-        doNothing().when(tokenRepository).delete(token);
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+        when(tokenRepository.deleteAllByUserId(user.getId())).thenReturn(1);
 
         userService.delete(user);
-        verify(userRepository, times(1)).findById(any());
-        verify(userRepository, times(1)).delete(any());
-        verify(tokenRepository, times(1)).findAllTokensByUser(any());
-        verify(tokenRepository, times(1)).delete(any());
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, times(1)).deleteDirectlyById(user.getId());
+        verify(tokenRepository, times(1)).deleteAllByUserId(user.getId());
+        verify(tokenRepository, never()).findAllTokensByUser(any());
+        verify(tokenRepository, never()).delete(any());
     }
 
     @Test
     public void deleteUserTestResourceNotFound() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(userRepository.existsById(user.getId())).thenReturn(false);
         assertThrows(ResourceNotFoundException.class, () -> userService.delete(user));
-        verify(userRepository, times(1)).findById(any());
+        verify(userRepository, never()).deleteDirectlyById(any());
     }
 
     @Test
     public void editUserTest() throws BadRequestException, ResourceNotFoundException {
-        User editedUser = TestUtil.generateMockUser(UUID.randomUUID());
+        User editedUser = TestUtil.generateMockUser(user.getId());
         editedUser.setUsername("Something else");
+        user.addFollowing(TestUtil.generateMockUser(UUID.randomUUID()));
+        UUID neighbour = UUID.randomUUID();
         when(userRepository.findById(any())).thenReturn(Optional.of(user));
-        when(userRepository.save(any())).thenReturn(editedUser);
+        when(userRepository.findNeighbourIds(user.getId())).thenReturn(List.of(neighbour));
 
-        when(tokenRepository.findAllTokensByUser(user.getId())).thenReturn(List.of(token));
-        doNothing().when(tokenRepository).delete(token);
+        when(tokenRepository.deleteAllByUserId(user.getId())).thenReturn(1);
 
         UserDto result = userService.edit(editedUser);
-        assertEquals(Mapper.INSTANCE.entityToDto(editedUser), result);
-        verify(userRepository, times(1)).save(editedUser);
+        assertEquals("Something else", result.getUsername());
+        assertEquals("Something else", user.getUsername());
+        assertNull(result.getFollowing());
+        assertEquals(1, user.getFollowing().size());
+        verify(userRepository, never()).save(any());
+        // Renamed: the neighbours' follower/following lists change too
+        verify(userRepository).touch(Set.of(user.getId(), neighbour));
+    }
+
+    @Test
+    public void editUserTest_NotRenamed() throws BadRequestException, ResourceNotFoundException {
+        User editedUser = TestUtil.generateMockUser(user.getId());
+        editedUser.setEmail("other@email.com");
+        when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        when(userRepository.findNeighbourIds(user.getId())).thenReturn(List.of(UUID.randomUUID()));
+
+        userService.edit(editedUser);
+        verify(userRepository).touch(Set.of(user.getId()));
     }
 
     @Test
@@ -108,6 +256,23 @@ public class UserServiceTest {
         assertThrows(BadRequestException.class, () -> userService.edit(null));
     }
 
+    @Test
+    public void editUserTest_HashesOutsideTransaction() throws BadRequestException, ResourceNotFoundException {
+        boolean[] inTransaction = new boolean[2];
+        doAnswer(invocation -> {
+            inTransaction[0] = TransactionSynchronizationManager.isActualTransactionActive();
+            return invocation.callRealMethod();
+        }).when(passwordHashingService).encode(any());
+        when(userRepository.findById(user.getId())).thenAnswer(invocation -> {
+            inTransaction[1] = TransactionSynchronizationManager.isActualTransactionActive();
+            return Optional.of(user);
+        });
+
+        userService.edit(TestUtil.generateMockUser(user.getId()));
+        assertFalse(inTransaction[0], "No connection may be held while waiting for the hashing pool");
+        assertTrue(inTransaction[1]);
+    }
+
     @Test
     public void editUserTestResourceNotFound() {
         when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
@@ -116,50 +281,192 @@ public class UserServiceTest {
 
     @Test
     public void revokeUserAccessTest() throws ResourceNotFoundException {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(tokenRepository.findAllTokensByUser(user.getId())).thenReturn(List.of(token));
-        doNothing().when(tokenRepository).delete(token);
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+        when(tokenRepository.deleteAllByUserId(user.getId())).thenReturn(3);
+
+        assertEquals(3, userService.revokeUserAccess(user.getId()));
+
+        verify(tokenRepository, times(1)).deleteAllByUserId(user.getId());
+        verify(tokenRepository, never()).delete(any());
+    }
+
+    @Test
+    public void validateTokenTest_Cached() {
+        Token valid = TestUtil.generateMockToken(user);
+        valid.setToken("valid-" + UUID.randomUUID());
+        when(tokenRepository.findByToken(valid.getToken())).thenReturn(Optional.of(valid));
+
+        assertEquals(user.getId(), userService.validateToken(valid.getToken()));
+        assertEquals(user.getId(), userService.validateToken(valid.getToken()));
+
+        verify(tokenRepository, times(1)).findByToken(valid.getToken());
+    }
+
+    @Test
+    public void validateTokenTest_NegativeCached() {
+        String unknown = "unknown-" + UUID.randomUUID();
+        when(tokenRepository.findByToken(unknown)).thenReturn(Optional.empty());
+
+        assertThrows(BadCredentialsException.class, () -> userService.validateToken(unknown));
+        assertThrows(BadCredentialsException.class, () -> userService.validateToken(unknown));
+
+        verify(tokenRepository, times(1)).findByToken(unknown);
+    }
 
+    @Test
+    public void validateTokenTest_InvalidatedOnRevoke() throws ResourceNotFoundException {
+        Token valid = TestUtil.generateMockToken(user);
+        valid.setToken("revoked-" + UUID.randomUUID());
+        when(tokenRepository.findByToken(valid.getToken())).thenReturn(Optional.of(valid));
+        when(userRepository.existsById(user.getId())).thenReturn(true);
+
+        assertEquals(user.getId(), userService.validateToken(valid.getToken()));
+
+        when(tokenRepository.findByToken(valid.getToken())).thenReturn(Optional.empty());
         userService.revokeUserAccess(user.getId());
 
-        verify(tokenRepository, times(1)).delete(token);
+        assertThrows(BadCredentialsException.class, () -> userService.validateToken(valid.getToken()));
+        verify(tokenRepository, times(2)).findByToken(valid.getToken());
     }
 
     @Test
     public void revokeUserAccessTestResourceNotFound() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(userRepository.existsById(user.getId())).thenReturn(false);
         assertThrows(ResourceNotFoundException.class, () -> userService.revokeUserAccess(user.getId()));
     }
 
     @Test
     public void getUserTest() throws ResourceNotFoundException {
-        when(userRepository.findById(any())).thenReturn(Optional.of(user));
+        when(userRepository.findProfileById(user.getId()))
+                .thenReturn(Optional.of(TestUtil.generateUserProfileView(user)));
+
+        UserProfileDto result = userService.getUser(user.getId());
+        assertEquals(user.getUsername(), result.getUsername());
+        assertNull(result.getFollowing());
+        assertNull(result.getFollowers());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    public void getUserVersionTest() throws ResourceNotFoundException {
+        user.setVersion(4);
+        user.setUpdatedAt(Instant.ofEpochMilli(1_000L));
+        when(userRepository.findProfileById(user.getId()))
+                .thenReturn(Optional.of(TestUtil.generateUserProfileView(user)));
+
+        UserVersionDto result = userService.getUserVersion(user.getId());
+        assertEquals(4, result.getVersion());
+        assertEquals(1_000L, result.getLastModified());
+    }
 
-        UserDto result = userService.getUser(user.getId());
-        assertEquals(result, Mapper.INSTANCE.entityToDto(user));
+    @Test
+    public void getUserVersionTest_NotFound() {
+        when(userRepository.findProfileById(any())).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserVersion(user.getId()));
     }
 
     @Test
     public void getUserTest_NotFound() {
-        when(userRepository.findByUsername(any())).thenReturn(Optional.empty());
+        when(userRepository.findProfileById(any())).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> userService.getUser(user.getId()));
     }
 
+    @Test
+    public void getUserTest_Expanded() throws ResourceNotFoundException {
+        User followed = TestUtil.generateMockUser(UUID.randomUUID());
+        User deleted = TestUtil.generateMockUser(UUID.randomUUID());
+        when(userRepository.findProfileById(user.getId()))
+                .thenReturn(Optional.of(TestUtil.generateUserProfileView(user)));
+        when(userRepository.findFollowingIds(user.getId())).thenReturn(List.of(followed.getId(), deleted.getId()));
+        when(userRepository.findProfilesByIdIn(any()))
+                .thenReturn(List.of(TestUtil.generateUserProfileView(followed)));
+
+        UserProfileDto result = userService.getUser(user.getId(), EnumSet.of(UserExpansion.FOLLOWING));
+        assertEquals(1, result.getFollowing().size());
+        assertEquals(followed.getId(), result.getFollowing().get(0).getId());
+        assertNull(result.getFollowers());
+        verify(userRepository, never()).findFollowerIds(any());
+        verify(userRepository, never()).findById(any());
+    }
+
     @Test
     public void followTest() throws ResourceNotFoundException {
         User utf = TestUtil.generateMockUser(UUID.randomUUID());
         FollowDto followDto = TestUtil.generateFollowDto(user, utf);
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.findById(utf.getId())).thenReturn(Optional.of(utf));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(user.getId(), utf.getId()));
+        when(userRepository.insertFollowing(user.getId(), utf.getId())).thenReturn(1);
+
+        FollowResultDto result = userService.follow(followDto);
+
+        assertEquals(FollowStatus.FOLLOWED, result.getStatus());
+        verify(userRepository, times(1)).adjustFollowCounts(user.getId(), utf.getId(), 1);
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    public void followTest_AlreadyFollowing() throws ResourceNotFoundException {
+        User utf = TestUtil.generateMockUser(UUID.randomUUID());
+        FollowDto followDto = TestUtil.generateFollowDto(user, utf);
+
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(user.getId(), utf.getId()));
+        when(userRepository.insertFollowing(user.getId(), utf.getId())).thenReturn(0);
+
+        FollowResultDto result = userService.follow(followDto);
+
+        assertEquals(FollowStatus.ALREADY_FOLLOWING, result.getStatus());
+        verify(userRepository, never()).adjustFollowCounts(any(), any(), anyInt());
+    }
+
+    @Test
+    public void followTest_ConcurrentFollow() throws ResourceNotFoundException {
+        User utf = TestUtil.generateMockUser(UUID.randomUUID());
+        FollowDto followDto = TestUtil.generateFollowDto(user, utf);
+
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(user.getId(), utf.getId()));
+        when(userRepository.insertFollowing(user.getId(), utf.getId())).thenThrow(
+                new DataIntegrityViolationException("duplicate key", new SQLException("duplicate key", "23505")));
+
+        FollowResultDto result = userService.follow(followDto);
+
+        assertEquals(FollowStatus.ALREADY_FOLLOWING, result.getStatus());
+    }
+
+    @Test
+    public void followTest_DeletedConcurrently() {
+        User utf = TestUtil.generateMockUser(UUID.randomUUID());
+        FollowDto followDto = TestUtil.generateFollowDto(user, utf);
 
-        when(userRepository.save(user)).thenReturn(user);
-        when(userRepository.save(utf)).thenReturn(utf);
+        when(userRepository.findExistingIds(any()))
+                .thenReturn(List.of(user.getId(), utf.getId()))
+                .thenReturn(List.of(user.getId()));
+        when(userRepository.insertFollowing(user.getId(), utf.getId())).thenThrow(
+                new DataIntegrityViolationException("foreign key", new SQLException("foreign key", "23503")));
 
-        userService.follow(followDto);
+        assertThrows(ResourceNotFoundException.class, () -> userService.follow(followDto));
+    }
 
-        verify(userRepository, times(1)).save(user);
-        verify(userRepository, times(1)).save(utf);
+    @Test
+    public void followBatchTest_DeletedConcurrently() {
+        User a = TestUtil.generateMockUser(UUID.randomUUID());
+        User b = TestUtil.generateMockUser(UUID.randomUUID());
+        List<FollowDto> pairs = List.of(TestUtil.generateFollowDto(user, a), TestUtil.generateFollowDto(user, b));
+
+        when(userRepository.findExistingIds(any()))
+                .thenReturn(List.of(user.getId(), a.getId(), b.getId()))
+                .thenReturn(List.of(user.getId()));
+        when(followBatchRepository.insertFollowing(any())).thenThrow(
+                new DataIntegrityViolationException("foreign key", new SQLException("foreign key", "23503")));
+        when(userRepository.insertFollowing(user.getId(), a.getId())).thenThrow(
+                new DataIntegrityViolationException("duplicate key", new SQLException("duplicate key", "23505")));
+        when(userRepository.insertFollowing(user.getId(), b.getId())).thenThrow(
+                new DataIntegrityViolationException("foreign key", new SQLException("foreign key", "23503")));
+
+        List<FollowResultDto> results = userService.followBatch(pairs);
+
+        assertEquals(List.of(FollowStatus.ALREADY_FOLLOWING, FollowStatus.NOT_FOUND),
+                results.stream().map(FollowResultDto::getStatus).toList());
     }
 
     @Test
@@ -171,26 +478,218 @@ public class UserServiceTest {
                 .followId(utf.getId())
                 .build();
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(utf.getId()));
         assertThrows(ResourceNotFoundException.class, () -> userService.follow(followDto));
     }
 
+    @Test
+    public void followTest_Self() {
+        FollowDto followDto = TestUtil.generateFollowDto(user, user);
+        assertThrows(BadRequestException.class, () -> userService.follow(followDto));
+    }
+
+    @Test
+    public void followBatchTest() {
+        User a = TestUtil.generateMockUser(UUID.randomUUID());
+        User b = TestUtil.generateMockUser(UUID.randomUUID());
+        User missing = TestUtil.generateMockUser(UUID.randomUUID());
+        List<FollowDto> pairs = List.of(
+                TestUtil.generateFollowDto(user, a),
+                TestUtil.generateFollowDto(user, b),
+                TestUtil.generateFollowDto(user, missing),
+                TestUtil.generateFollowDto(user, user),
+                TestUtil.generateFollowDto(user, a));
+
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(user.getId(), a.getId(), b.getId()));
+        when(followBatchRepository.insertFollowing(any())).thenReturn(new int[] {1, 0});
+
+        List<FollowResultDto> results = userService.followBatch(pairs);
+
+        assertEquals(List.of(FollowStatus.FOLLOWED, FollowStatus.ALREADY_FOLLOWING, FollowStatus.NOT_FOUND,
+                        FollowStatus.INVALID, FollowStatus.ALREADY_FOLLOWING),
+                results.stream().map(FollowResultDto::getStatus).toList());
+        verify(userRepository, times(1)).findExistingIds(any());
+        verify(followBatchRepository, times(1)).insertFollowing(
+                List.of(TestUtil.generateFollowDto(user, a), TestUtil.generateFollowDto(user, b)));
+        verify(followBatchRepository, times(1)).adjustFollowCounts(any());
+    }
+
+    @Test
+    public void unfollowBatchTest() {
+        User a = TestUtil.generateMockUser(UUID.randomUUID());
+        List<FollowDto> pairs = List.of(TestUtil.generateFollowDto(user, a));
+
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(user.getId(), a.getId()));
+        when(followBatchRepository.deleteFollowing(any())).thenReturn(new int[] {0});
+
+        List<FollowResultDto> results = userService.unfollowBatch(pairs);
+
+        assertEquals(FollowStatus.NOT_FOLLOWING, results.get(0).getStatus());
+        verify(followBatchRepository, never()).adjustFollowCounts(any());
+    }
+
+    @Test
+    public void followBatchTest_Empty() {
+        assertThrows(BadRequestException.class, () -> userService.followBatch(List.of()));
+    }
+
+    @Test
+    public void getFollowCountsTest() throws ResourceNotFoundException {
+        when(userRepository.findFollowCountsById(user.getId())).thenReturn(Optional.of(new FollowCountsView() {
+            @Override
+            public long getFollowerCount() {
+                return 4;
+            }
+
+            @Override
+            public long getFollowingCount() {
+                return 2;
+            }
+        }));
+
+        FollowCountsDto counts = userService.getFollowCounts(user.getId());
+        assertEquals(4, counts.getFollowers());
+        assertEquals(2, counts.getFollowing());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    public void getFollowCountsTest_NotFound() {
+        when(userRepository.findFollowCountsById(user.getId())).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> userService.getFollowCounts(user.getId()));
+    }
+
     @Test
     public void getFollowers() throws ResourceNotFoundException {
-        for (int i = 0; i < 10; i++) {
-            user.getFollowers().add(TestUtil.generateMockUser(UUID.randomUUID()));
+        List<UserSummaryView> rows = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            rows.add(TestUtil.generateUserSummaryView(TestUtil.generateMockUser(UUID.randomUUID())));
         }
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        when(userRepository.findProfileById(user.getId()))
+                .thenReturn(Optional.of(TestUtil.generateUserProfileView(user)));
+        when(userRepository.findFollowersPage(eq(user.getId()), any(), eq(11))).thenReturn(rows);
+
+        UserPageDto page = userService.getFollowers(user.getId(), null, 10);
+        assertEquals(10, page.getUsers().size());
+        assertNotNull(page.getNextCursor());
+
+        UUID lastId = rows.get(9).getId();
+        when(userRepository.findFollowersPage(user.getId(), lastId, 11)).thenReturn(rows.subList(10, 11));
 
-        List<UserDto> followers = userService.getFollowers(user.getId());
-        assertEquals(10, followers.size());
-        verify(userRepository).findById(user.getId());
+        UserPageDto nextPage = userService.getFollowers(user.getId(), page.getNextCursor(), 10);
+        assertEquals(1, nextPage.getUsers().size());
+        assertNull(nextPage.getNextCursor());
     }
 
     @Test
     public void getFollowers_NotFound() {
-        when(userRepository.findById(user.getId())).thenReturn(Optional.empty());
-        assertThrows(ResourceNotFoundException.class, () -> userService.getFollowers(user.getId()));
+        when(userRepository.findProfileById(user.getId())).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> userService.getFollowers(user.getId(), null, 10));
+    }
+
+    @Test
+    public void getFollowers_InvalidCursor() {
+        when(userRepository.findProfileById(user.getId()))
+                .thenReturn(Optional.of(TestUtil.generateUserProfileView(user)));
+        assertThrows(BadRequestException.class, () -> userService.getFollowers(user.getId(), "not-a-cursor", 10));
+    }
+
+    @Test
+    public void getFollowing() throws ResourceNotFoundException {
+        User followed = TestUtil.generateMockUser(UUID.randomUUID());
+        when(userRepository.findProfileById(user.getId()))
+                .thenReturn(Optional.of(TestUtil.generateUserProfileView(user)));
+        when(userRepository.findFollowingPage(eq(user.getId()), any(), anyInt()))
+                .thenReturn(List.of(TestUtil.generateUserSummaryView(followed)));
+
+        UserPageDto page = userService.getFollowing(user.getId(), null, 10);
+        assertEquals(1, page.getUsers().size());
+        assertEquals(followed.getId(), page.getUsers().get(0).getId());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void getRelationship_FromGraph() {
+        UUID otherId = UUID.randomUUID();
+        FollowGraph graph = new FollowGraph();
+        graph.follow(user.getId(), otherId);
+        when(followGraphService.graph()).thenReturn(Optional.of(graph));
+
+        RelationshipDto relationship = userService.getRelationship(user.getId(), otherId);
+        assertTrue(relationship.isFollowing());
+        assertFalse(relationship.isFollowedBy());
+        verify(userRepository, never()).findFollowEdgesBetween(any(), any());
+    }
+
+    @Test
+    public void getRelationship_GraphNotLoaded() {
+        UUID otherId = UUID.randomUUID();
+        when(followGraphService.graph()).thenReturn(Optional.empty());
+        when(userRepository.findFollowEdgesBetween(user.getId(), otherId)).thenReturn(List.of(otherId));
+
+        RelationshipDto relationship = userService.getRelationship(user.getId(), otherId);
+        assertFalse(relationship.isFollowing());
+        assertTrue(relationship.isFollowedBy());
+    }
+
+    @Test
+    public void getRelationships_FromGraph() {
+        UUID followed = UUID.randomUUID();
+        UUID mutual = UUID.randomUUID();
+        UUID follower = UUID.randomUUID();
+        FollowGraph graph = new FollowGraph();
+        graph.follow(user.getId(), followed);
+        graph.follow(user.getId(), mutual);
+        graph.follow(mutual, user.getId());
+        graph.follow(follower, user.getId());
+        when(followGraphService.graph()).thenReturn(Optional.of(graph));
+
+        RelationshipsDto relationships = userService.getRelationships(user.getId(),
+                List.of(followed, UUID.randomUUID(), mutual, follower));
+        assertEquals(4, relationships.getCount());
+        assertEquals(0b0101, BitSet.valueOf(Base64.getDecoder().decode(relationships.getFollowing())).toLongArray()[0]);
+        assertEquals(0b1100, BitSet.valueOf(Base64.getDecoder().decode(relationships.getFollowedBy())).toLongArray()[0]);
+        verify(userRepository, never()).findFollowEdgesWith(any(), any());
+    }
+
+    @Test
+    public void getRelationships_GraphNotLoaded() {
+        UUID followed = UUID.randomUUID();
+        UUID follower = UUID.randomUUID();
+        when(followGraphService.graph()).thenReturn(Optional.empty());
+        when(userRepository.findFollowEdgesWith(eq(user.getId()), any())).thenReturn(List.of(
+                TestUtil.generateFollowEdgeView(user.getId(), followed),
+                TestUtil.generateFollowEdgeView(follower, user.getId())));
+
+        RelationshipsDto relationships = userService.getRelationships(user.getId(), List.of(follower, followed));
+        assertEquals(0b10, BitSet.valueOf(Base64.getDecoder().decode(relationships.getFollowing())).toLongArray()[0]);
+        assertEquals(0b01, BitSet.valueOf(Base64.getDecoder().decode(relationships.getFollowedBy())).toLongArray()[0]);
+    }
+
+    @Test
+    public void getRelationships_TooManyTargets() {
+        List<UUID> targets = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            targets.add(UUID.randomUUID());
+        }
+        assertThrows(BadRequestException.class, () -> userService.getRelationships(user.getId(), targets));
+    }
+
+    @Test
+    public void getSuggestions() {
+        User suggested = TestUtil.generateMockUser(UUID.randomUUID());
+        UUID deleted = UUID.randomUUID();
+        when(suggestionService.suggest(user.getId(), SuggestionService.MAX_SUGGESTIONS)).thenReturn(List.of(
+                new SuggestionService.Suggestion(deleted, 3),
+                new SuggestionService.Suggestion(suggested.getId(), 2)));
+        when(userRepository.findProfilesByIdIn(List.of(deleted, suggested.getId())))
+                .thenReturn(List.of(TestUtil.generateUserProfileView(suggested)));
+
+        List<SuggestionDto> suggestions = userService.getSuggestions(user.getId(), 500);
+        assertEquals(1, suggestions.size());
+        assertEquals(suggested.getId(), suggestions.get(0).getUser().getId());
+        assertEquals(2, suggestions.get(0).getSharedFollowees());
+        assertThrows(BadRequestException.class, () -> userService.getSuggestions(user.getId(), 0));
     }
 
     @Test
@@ -198,16 +697,13 @@ public class UserServiceTest {
         User utuf = TestUtil.generateMockUser(UUID.randomUUID());
         FollowDto followDto = TestUtil.generateFollowDto(user, utuf);
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
-        when(userRepository.findById(utuf.getId())).thenReturn(Optional.of(utuf));
-
-        when(userRepository.save(user)).thenReturn(user);
-        when(userRepository.save(utuf)).thenReturn(utuf);
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(user.getId(), utuf.getId()));
+        when(userRepository.deleteFollowing(user.getId(), utuf.getId())).thenReturn(1);
 
-        userService.unfollow(followDto);
+        FollowResultDto result = userService.unfollow(followDto);
 
-        verify(userRepository, times(1)).save(user);
-        verify(userRepository, times(1)).save(utuf);
+        assertEquals(FollowStatus.UNFOLLOWED, result.getStatus());
+        verify(userRepository, times(1)).adjustFollowCounts(user.getId(), utuf.getId(), -1);
     }
 
     private final User user = TestUtil.generateMockUser(UUID.randomUUID());
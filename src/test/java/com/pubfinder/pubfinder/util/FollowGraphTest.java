@@ -0,0 +1,73 @@
+package com.pubfinder.pubfinder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FollowGraphTest {
+
+    private final UUID a = UUID.randomUUID();
+    private final UUID b = UUID.randomUUID();
+    private final UUID c = UUID.randomUUID();
+
+    @Test
+    public void followAndUnfollow() {
+        FollowGraph graph = new FollowGraph();
+
+        assertTrue(graph.follow(a, b));
+        assertFalse(graph.follow(a, b));
+        assertTrue(graph.follow(c, b));
+
+        assertTrue(graph.follows(a, b));
+        assertFalse(graph.follows(b, a));
+        assertEquals(2, graph.followerCount(b));
+        assertEquals(1, graph.followingCount(a));
+        assertEquals(2, graph.edgeCount());
+
+        assertTrue(graph.unfollow(a, b));
+        assertFalse(graph.unfollow(a, b));
+        assertFalse(graph.follows(a, b));
+        assertEquals(1, graph.followerCount(b));
+        assertFalse(graph.follows(UUID.randomUUID(), b));
+    }
+
+    @Test
+    public void replaceAndRemoveUser() {
+        FollowGraph graph = new FollowGraph();
+        graph.follow(a, b);
+        graph.follow(c, a);
+
+        graph.replaceUser(a, List.of(c), List.of(b));
+        assertFalse(graph.follows(a, b));
+        assertTrue(graph.follows(a, c));
+        assertTrue(graph.follows(b, a));
+        assertFalse(graph.follows(c, a));
+        assertEquals(0, graph.followingCount(c));
+
+        graph.removeUser(a);
+        assertEquals(0, graph.edgeCount());
+        assertEquals(0, graph.followerCount(c));
+        assertEquals(0, graph.followingCount(b));
+    }
+
+    @Test
+    public void builderSortsAndDeduplicates() {
+        FollowGraph graph = new FollowGraph.Builder(3)
+                .add(a, c)
+                .add(a, b)
+                .add(a, c)
+                .add(b, c)
+                .build();
+
+        assertEquals(3, graph.edgeCount());
+        int[] following = graph.following(graph.node(a));
+        assertEquals(2, following.length);
+        assertTrue(following[0] < following[1]);
+        assertEquals(2, graph.followerCount(c));
+    }
+}
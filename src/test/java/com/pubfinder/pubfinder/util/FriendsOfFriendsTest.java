@@ -0,0 +1,77 @@
+package com.pubfinder.pubfinder.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FriendsOfFriendsTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void ranksBySharedFolloweesAndSkipsFollowedUsers() {
+        UUID user = UUID.randomUUID();
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        UUID popular = UUID.randomUUID();
+        UUID niche = UUID.randomUUID();
+        FollowGraph graph = new FollowGraph.Builder(5)
+                .add(user, a)
+                .add(user, b)
+                .add(a, popular)
+                .add(b, popular)
+                .add(b, niche)
+                .add(a, b)
+                .add(b, user)
+                .build();
+
+        List<FriendsOfFriends.Candidate> ranked = FriendsOfFriends.rank(graph, graph.node(user), 100, 100, 10, pool);
+
+        assertEquals(2, ranked.size());
+        assertEquals(popular, graph.uuid(ranked.get(0).node()));
+        assertEquals(2, ranked.get(0).sharedFollowees());
+        assertEquals(niche, graph.uuid(ranked.get(1).node()));
+        assertEquals(1, ranked.get(1).sharedFollowees());
+    }
+
+    @Test
+    public void boundsWorkForHighDegreeUsers() {
+        UUID user = UUID.randomUUID();
+        UUID target = UUID.randomUUID();
+        FollowGraph.Builder builder = new FollowGraph.Builder(5_000);
+        List<UUID> followees = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            UUID followee = UUID.randomUUID();
+            followees.add(followee);
+            builder.add(user, followee).add(followee, target);
+            for (int j = 0; j < 20; j++) {
+                builder.add(followee, UUID.randomUUID());
+            }
+        }
+        FollowGraph graph = builder.build();
+
+        List<FriendsOfFriends.Candidate> ranked = FriendsOfFriends.rank(graph, graph.node(user), 1_000, 5, 3, pool);
+
+        assertEquals(3, ranked.size());
+        assertTrue(ranked.get(0).sharedFollowees() <= 1_000);
+        assertTrue(ranked.stream().noneMatch(candidate -> followees.contains(graph.uuid(candidate.node()))));
+    }
+
+    @Test
+    public void userWithoutFollowsHasNoCandidates() {
+        FollowGraph graph = new FollowGraph();
+        assertTrue(FriendsOfFriends.rank(graph, graph.node(UUID.randomUUID()), 100, 100, 10, pool).isEmpty());
+    }
+}
@@ -0,0 +1,49 @@
+package com.pubfinder.pubfinder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PrefixIndexTest {
+
+    @Test
+    public void searchesBuiltAndAddedEntriesInKeyOrder() {
+        PrefixIndex<String> index = new PrefixIndex.Builder<String>(4)
+                .add("bob", "bob")
+                .add("anna", "anna")
+                .add("annika", "annika")
+                .add("ann", "ann")
+                .build();
+        index.add("annabel", "annabel");
+        index.add("annb", "annb");
+
+        assertEquals(List.of("ann", "anna", "annabel", "annb", "annika"), index.search("ann", 10, value -> true));
+        assertEquals(List.of("ann", "anna"), index.search("ann", 2, value -> true));
+        assertEquals(List.of("bob"), index.search("b", 10, value -> true));
+        assertTrue(index.search("c", 10, value -> true).isEmpty());
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    public void skipsStaleValuesAndReturnsEachValueOnce() {
+        PrefixIndex<String> index = new PrefixIndex.Builder<String>(3)
+                .add("ada", "user-1")
+                .add("ada lovelace", "user-1")
+                .add("adam", "user-2")
+                .build();
+        index.add("adalbert", "user-3");
+
+        assertEquals(List.of("user-1", "user-3", "user-2"), index.search("ada", 10, value -> true));
+        assertEquals(List.of("user-1", "user-2"), index.search("ada", 10, value -> !value.equals("user-3")));
+    }
+
+    @Test
+    public void emptyIndex() {
+        PrefixIndex<String> index = PrefixIndex.empty();
+        index.add("x", "x");
+        assertEquals(List.of("x"), index.search("", 10, value -> true));
+    }
+}
@@ -1,11 +1,17 @@
 package com.pubfinder.pubfinder.util;
 
+import com.pubfinder.pubfinder.db.CredentialsView;
+import com.pubfinder.pubfinder.db.FollowEdgeView;
+import com.pubfinder.pubfinder.db.UserProfileView;
+import com.pubfinder.pubfinder.db.UserSummaryView;
 import com.pubfinder.pubfinder.dto.FollowDto;
 import com.pubfinder.pubfinder.dto.UserDto;
+import com.pubfinder.pubfinder.dto.UserProfileDto;
 import com.pubfinder.pubfinder.models.Token;
 import com.pubfinder.pubfinder.models.User;
 import com.pubfinder.pubfinder.models.enums.Role;
 import com.pubfinder.pubfinder.models.enums.TokenType;
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -36,6 +42,15 @@ public class TestUtil {
         .build();
   }
 
+  public static UserProfileDto generateMockUserProfileDto(UUID id) {
+    return UserProfileDto.builder()
+        .id(id)
+        .firstname("firstName")
+        .lastname("lastName")
+        .username("username")
+        .build();
+  }
+
   public static Token generateMockToken(User user) {
     return Token.builder()
         .id(null)
@@ -67,4 +82,100 @@ public class TestUtil {
             .build();
   }
 
+  public static UserSummaryView generateUserSummaryView(User user) {
+    return new UserSummaryView() {
+      @Override
+      public UUID getId() {
+        return user.getId();
+      }
+
+      @Override
+      public String getUsername() {
+        return user.getUsername();
+      }
+
+      @Override
+      public String getFirstname() {
+        return user.getFirstname();
+      }
+
+      @Override
+      public String getLastname() {
+        return user.getLastname();
+      }
+    };
+  }
+
+  public static UserProfileView generateUserProfileView(User user) {
+    return new UserProfileView() {
+      @Override
+      public UUID getId() {
+        return user.getId();
+      }
+
+      @Override
+      public String getUsername() {
+        return user.getUsername();
+      }
+
+      @Override
+      public String getFirstname() {
+        return user.getFirstname();
+      }
+
+      @Override
+      public String getLastname() {
+        return user.getLastname();
+      }
+
+      @Override
+      public long getFollowerCount() {
+        return user.getFollowerCount();
+      }
+
+      @Override
+      public long getFollowingCount() {
+        return user.getFollowingCount();
+      }
+
+      @Override
+      public long getVersion() {
+        return user.getVersion();
+      }
+
+      @Override
+      public Instant getUpdatedAt() {
+        return user.getUpdatedAt();
+      }
+    };
+  }
+
+  public static CredentialsView generateCredentialsView(String email, String username) {
+    return new CredentialsView() {
+      @Override
+      public String getEmail() {
+        return email;
+      }
+
+      @Override
+      public String getUsername() {
+        return username;
+      }
+    };
+  }
+
+  public static FollowEdgeView generateFollowEdgeView(UUID userId, UUID followingId) {
+    return new FollowEdgeView() {
+      @Override
+      public UUID getUserId() {
+        return userId;
+      }
+
+      @Override
+      public UUID getFollowingId() {
+        return followingId;
+      }
+    };
+  }
+
 }